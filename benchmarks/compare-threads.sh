@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# 分别以平台线程和虚拟线程模式启动服务, 用 LoadDriver 压测同一组接口, 对比吞吐量和 p99.
+# 用法 (在项目根目录): benchmarks/compare-threads.sh [并发数] [持续秒数]
+# 默认使用 application.yml 中配置的数据库, PROFILE=embedded 时使用内存 H2.
+set -euo pipefail
+
+CONCURRENCY=${1:-400}
+DURATION=${2:-30}
+PORT=${PORT:-18080}
+PROFILE=${PROFILE:-default}
+# 平台线程模式下 Tomcat 的线程数上限, 虚拟线程模式下不使用
+PLATFORM_THREADS=${PLATFORM_THREADS:-200}
+
+cd "$(dirname "$0")/.."
+./mvnw -q -DskipTests install
+./mvnw -q -f benchmarks/pom.xml -DskipTests package
+APP_JAR=$(ls target/todo_list-*-exec.jar | head -n 1)
+
+run_mode() {
+  local label=$1 virtual=$2
+  java -jar "$APP_JAR" \
+    --server.port="$PORT" \
+    --spring.profiles.active="$PROFILE" \
+    --spring.threads.virtual.enabled="$virtual" \
+    --server.tomcat.threads.max="$PLATFORM_THREADS" \
+    --spring.jpa.show-sql=false \
+    --logging.level.org.hibernate.SQL=warn \
+    > "target/compare-threads-$label.log" 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  for _ in $(seq 1 60); do
+    if curl -s -o /dev/null "http://localhost:$PORT/v3/api-docs"; then
+      break
+    fi
+    sleep 1
+  done
+
+  java -cp benchmarks/target/benchmarks.jar org.example.todo_list.load.LoadDriver \
+    --base-url "http://localhost:$PORT" --concurrency "$CONCURRENCY" --duration "$DURATION" --label "$label"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  trap - EXIT
+}
+
+run_mode platform false
+run_mode virtual true
+
+# 虚拟线程模式下记录到的载体线程固定事件
+grep -A14 "虚拟线程固定了载体线程" target/compare-threads-virtual.log || echo "没有记录到载体线程固定事件"
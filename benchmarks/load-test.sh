@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+# 以 embedded profile (内存 H2, 不依赖外部 MySQL) 启动服务, 造数据后用 LoadDriver 压测, 最后停止服务.
+# 用法 (在项目根目录): benchmarks/load-test.sh [LoadDriver 选项...]
+#   benchmarks/load-test.sh --save-baseline benchmarks/results/load-baseline.json
+#   benchmarks/load-test.sh --compare benchmarks/results/load-baseline.json --threshold 10
+# 有接口退化时以 1 退出, 可以直接用在 CI 中.
+set -euo pipefail
+
+PORT=${PORT:-18080}
+
+cd "$(dirname "$0")/.."
+./mvnw -q -DskipTests install
+./mvnw -q -f benchmarks/pom.xml -DskipTests package
+APP_JAR=$(ls target/todo_list-*-exec.jar | head -n 1)
+mkdir -p benchmarks/results
+
+java -jar "$APP_JAR" \
+  --server.port="$PORT" \
+  --spring.profiles.active=embedded \
+  > target/load-test.log 2>&1 &
+PID=$!
+trap "kill $PID 2>/dev/null || true" EXIT
+
+for _ in $(seq 1 60); do
+  if curl -s -o /dev/null "http://localhost:$PORT/v3/api-docs"; then
+    break
+  fi
+  sleep 1
+done
+
+java -cp benchmarks/target/benchmarks.jar org.example.todo_list.load.LoadDriver \
+  --base-url "http://localhost:$PORT" --label embedded "$@"
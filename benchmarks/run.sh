@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# 一条命令打包并运行 JMH 基准测试, 结果以 JSON 写入 benchmarks/results/<版本>-<时间>.json
+# 用法 (在任意目录):
+#   benchmarks/run.sh                                  运行全部基准测试
+#   benchmarks/run.sh JwtUtils                         只运行名字匹配正则的基准测试
+#   benchmarks/run.sh --compare results/v1.json [正则]  运行后与之前的结果对比, 变差超过 THRESHOLD% 的标记为 REGRESSION
+set -euo pipefail
+
+cd "$(dirname "$0")"
+BASELINE=""
+if [[ "${1:-}" == "--compare" ]]; then
+  BASELINE=$(realpath "$2")
+  shift 2
+fi
+THRESHOLD=${THRESHOLD:-10}
+
+# 被测代码来自本地仓库中根项目的 jar, 先安装
+../mvnw -q -f ../pom.xml -DskipTests install
+../mvnw -q -f pom.xml -DskipTests package
+
+mkdir -p results
+VERSION=$(git describe --tags --always --dirty 2>/dev/null || echo unknown)
+RESULT="results/${VERSION}-$(date +%Y%m%d-%H%M%S).json"
+java -jar target/benchmarks.jar -rf json -rff "$RESULT" "$@"
+echo "结果已写入 benchmarks/$RESULT"
+
+if [[ -n "$BASELINE" ]]; then
+  # avgt 越小越好, thrpt 越大越好
+  jq -r --slurpfile base "$BASELINE" --argjson threshold "$THRESHOLD" '
+    def key: .benchmark + (if .params then "(" + (.params | to_entries | map("\(.key)=\(.value)") | join(",")) + ")" else "" end);
+    ($base[0] | map({(key): .primaryMetric.score}) | add) as $b
+    | (["benchmark", "baseline", "current", "unit", "change%", ""] | @tsv),
+      (.[] | key as $k | .primaryMetric as $m | $b[$k] as $old
+        | (if $old then (($m.score - $old) / $old * 100) else null end) as $change
+        | [$k,
+           (if $old then ($old * 100 | round / 100) else "-" end),
+           ($m.score * 100 | round / 100),
+           $m.scoreUnit,
+           (if $change then ($change * 10 | round / 10) else "-" end),
+           (if $change == null then ""
+            elif (.mode == "avgt" and $change > $threshold) or (.mode == "thrpt" and $change < -$threshold) then "REGRESSION"
+            else "" end)]
+        | @tsv)
+  ' "$RESULT" | column -t -s $'\t'
+fi
@@ -0,0 +1,131 @@
+package org.example.todo_list.controller;
+
+import org.example.todo_list.service.AvatarService;
+import org.example.todo_list.service.AvatarStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 头像请求的吞吐量: AvatarController 与改造前使用的 ResourceHttpRequestHandler (静态资源映射) 对比
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvatarBenchmark {
+    private static final String SMALL = "3f2c9a4e-5b1d-4c6e-8f7a-0d9b2e1c4a6f.png";
+    private static final String LARGE = "7a1e0c3d-2b4f-4e8a-9c6d-5f0b1a2e3d4c.png";
+
+    private Path dir;
+    private AvatarController controller;
+    private ResourceHttpRequestHandler legacyHandler;
+    private String lastModified;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("avatar-benchmark");
+        Random random = new Random(42);
+        // 常见头像大小, 以及一张超过内存缓存单条上限的大图
+        byte[] small = new byte[24 * 1024];
+        byte[] large = new byte[512 * 1024];
+        random.nextBytes(small);
+        random.nextBytes(large);
+        Files.write(dir.resolve(SMALL), small);
+        Files.write(dir.resolve(LARGE), large);
+
+        controller = new AvatarController(new AvatarService(new AvatarStore(dir.toString()), 16 * 1024 * 1024, 64 * 1024));
+
+        legacyHandler = new ResourceHttpRequestHandler();
+        legacyHandler.setLocations(List.of(new FileSystemResource(dir.toString() + "/")));
+        legacyHandler.setServletContext(new MockServletContext());
+        legacyHandler.afterPropertiesSet();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        legacyHandler.handleRequest(legacyRequest(SMALL), response);
+        lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(dir.resolve(SMALL));
+        Files.deleteIfExists(dir.resolve(LARGE));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public int small() throws IOException {
+        return serve(request(SMALL));
+    }
+
+    @Benchmark
+    public int legacySmall() throws Exception {
+        return legacyServe(legacyRequest(SMALL));
+    }
+
+    @Benchmark
+    public int large() throws IOException {
+        return serve(request(LARGE));
+    }
+
+    @Benchmark
+    public int legacyLarge() throws Exception {
+        return legacyServe(legacyRequest(LARGE));
+    }
+
+    // 浏览器带着缓存的校验信息重新请求
+    @Benchmark
+    public int revalidate() throws IOException {
+        MockHttpServletRequest request = request(SMALL);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, AvatarService.etag(SMALL));
+        return serve(request);
+    }
+
+    @Benchmark
+    public int legacyRevalidate() throws Exception {
+        MockHttpServletRequest request = legacyRequest(SMALL);
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        return legacyServe(request);
+    }
+
+    @Benchmark
+    public int range() throws IOException {
+        MockHttpServletRequest request = request(LARGE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=65536-131071");
+        return serve(request);
+    }
+
+    private int serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getAvatar(request.getRequestURI().substring("/images/".length()), request, response);
+        return response.getStatus() + response.getContentAsByteArray().length;
+    }
+
+    private int legacyServe(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        legacyHandler.handleRequest(request, response);
+        return response.getStatus() + response.getContentAsByteArray().length;
+    }
+
+    private static MockHttpServletRequest request(String filename) {
+        return new MockHttpServletRequest("GET", "/images/" + filename);
+    }
+
+    private static MockHttpServletRequest legacyRequest(String filename) {
+        MockHttpServletRequest request = request(filename);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, filename);
+        return request;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.todo_list.exception;
+
+import org.example.todo_list.dto.request.CreateTaskRequest;
+import org.example.todo_list.exception.errors.TaskError;
+import org.example.todo_list.utils.ApiResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+
+// GlobalExceptionHandler 构造错误响应的开销. *WithThrow 包含创建异常 (填充调用栈) 的开销
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+    private GlobalExceptionHandler handler;
+    private TaskException businessException;
+    private MethodArgumentNotValidException validationException;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        handler = new GlobalExceptionHandler();
+        businessException = new TaskException(TaskError.TASK_NOT_FOUND);
+
+        CreateTaskRequest request = CreateTaskRequest.builder().category("work").status(false).build();
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(request, "createTaskRequest");
+        bindingResult.addError(new FieldError("createTaskRequest", "name", "任务名不能为空"));
+        MethodParameter parameter = new MethodParameter(
+                GlobalExceptionHandlerBenchmark.class.getDeclaredMethod("createTask", CreateTaskRequest.class), 0);
+        validationException = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    // 只用来构造 MethodParameter
+    @SuppressWarnings("unused")
+    private void createTask(CreateTaskRequest request) {
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Void>> businessError() {
+        return handler.handleBaseException(businessException);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Void>> businessErrorWithThrow() {
+        return handler.handleBaseException(new TaskException(TaskError.TASK_NOT_FOUND));
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<?>> validationError() {
+        return handler.handleClientErrors(validationException);
+    }
+}
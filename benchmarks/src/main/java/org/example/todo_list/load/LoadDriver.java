@@ -0,0 +1,420 @@
+package org.example.todo_list.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * 对运行中的服务做闭环压测: 先注册用户并造数据 (用户 x 列表 x 任务), 然后固定数量的客户端并发循环发送请求,
+ * 按接口统计吞吐量和 p50/p95/p99. 结果可以保存为基线, 之后的运行与基线对比并标记性能退化.
+ * 用法: java -cp benchmarks/target/benchmarks.jar org.example.todo_list.load.LoadDriver [选项]
+ *   --base-url http://localhost:8080  --concurrency 200  --duration 30  --warmup 5  --label run
+ *   --users 20  --lists 5  --tasks 100     用户数, 每个用户的列表数, 每个列表的任务数
+ *   --mix getTask=30,taskPage=20,...       各接口的权重, 接口名见 Endpoint
+ *   --save-baseline file.json              把本次结果保存为基线
+ *   --compare file.json  --threshold 10    与基线对比, 吞吐量下降或 p99 上升超过阈值 (百分比) 时标记 REGRESSION, 以 1 退出
+ */
+public class LoadDriver {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final String PASSWORD = "load-test";
+    // 单次批量新建的上限, 见 BulkCreateTaskRequest
+    private static final int BULK_LIMIT = 5000;
+    private static final String DEFAULT_MIX =
+            "getTask=30,taskPage=20,batchGet=5,listsExpand=10,lists=10,user=8,createTask=7,updateTask=7,login=3";
+
+    enum Endpoint {
+        login, user, lists, listsExpand, taskPage, getTask, batchGet, createTask, updateTask, dueThisWeek, search
+    }
+
+    // 一个已登录的用户和它的数据, 每个客户端固定使用一个会话
+    static final class Session {
+        final String username;
+        volatile String cookie;
+        long[] listIds;
+        String[] categories;
+        long[] taskIds;
+
+        Session(String username) {
+            this.username = username;
+        }
+    }
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final List<Session> sessions = new ArrayList<>();
+
+    LoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+        // 客户端一侧也用虚拟线程, 避免压测端自己成为瓶颈
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        LoadDriver driver = new LoadDriver(options.getOrDefault("base-url", "http://localhost:8080"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int users = Integer.parseInt(options.getOrDefault("users", "20"));
+        int lists = Integer.parseInt(options.getOrDefault("lists", "5"));
+        int tasks = Integer.parseInt(options.getOrDefault("tasks", "100"));
+        Endpoint[] mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        String label = options.getOrDefault("label", "run");
+
+        long seedStart = System.nanoTime();
+        driver.seed(users, lists, tasks);
+        System.out.printf("造数据完成: %d 用户 x %d 列表 x %d 任务, 用时 %.1fs%n",
+                users, lists, tasks, (System.nanoTime() - seedStart) / 1e9);
+
+        driver.run(concurrency, warmup, mix);
+        Report report = driver.run(concurrency, duration, mix);
+        report.print(label);
+
+        if (options.containsKey("save-baseline")) {
+            MAPPER.writeValue(new File(options.get("save-baseline")), report.toBaseline(label));
+            System.out.println("基线已保存到 " + options.get("save-baseline"));
+        }
+        if (options.containsKey("compare")) {
+            double threshold = Double.parseDouble(options.getOrDefault("threshold", "10"));
+            JsonNode baseline = MAPPER.readTree(new File(options.get("compare")));
+            if (report.compare(baseline, threshold)) {
+                System.exit(1);
+            }
+        }
+    }
+
+    void seed(int users, int lists, int tasks) throws Exception {
+        // 注册和登录要算 BCrypt, 并发太高会被密码哈希线程池拒绝 (429)
+        try (ExecutorService seeders = Executors.newFixedThreadPool(4)) {
+            List<Future<Session>> futures = new ArrayList<>();
+            for (int u = 0; u < users; u++) {
+                futures.add(seeders.submit(() -> seedUser(lists, tasks)));
+            }
+            for (Future<Session> future : futures) {
+                sessions.add(future.get());
+            }
+        }
+    }
+
+    // 注册一个新用户, 登录, 按类别 list-0 .. list-n 批量新建任务, 再读出列表和任务的 id
+    private Session seedUser(int lists, int tasks) throws IOException, InterruptedException {
+        // 用户名最长 15 个字符
+        Session session = new Session("load_" + Integer.toString(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE), 36));
+        send(post(null, "/user/register", credentials(session)));
+        login(session);
+
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int l = 0; l < lists; l++) {
+            for (int t = 0; t < tasks; t++) {
+                batch.add(newTask("list-" + l, "task-" + t));
+                if (batch.size() == BULK_LIMIT) {
+                    send(post(session, "/task/bulk", MAPPER.writeValueAsString(Map.of("tasks", batch))));
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(post(session, "/task/bulk", MAPPER.writeValueAsString(Map.of("tasks", batch))));
+        }
+
+        JsonNode data = MAPPER.readTree(send(get(session, "/list")).body()).path("data");
+        if (data.isEmpty()) {
+            throw new IllegalStateException("造数据失败: " + session.username + " 没有任何列表");
+        }
+        session.listIds = new long[data.size()];
+        session.categories = new String[data.size()];
+        List<Long> taskIds = new ArrayList<>();
+        for (int i = 0; i < data.size(); i++) {
+            session.listIds[i] = data.get(i).path("id").asLong();
+            session.categories[i] = data.get(i).path("category").asText();
+            data.get(i).path("tasks").forEach(id -> taskIds.add(id.asLong()));
+        }
+        session.taskIds = taskIds.stream().mapToLong(Long::longValue).toArray();
+        return session;
+    }
+
+    private int login(Session session) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(post(null, "/user/login", credentials(session)));
+        response.headers().allValues("Set-Cookie").stream()
+                .filter(value -> value.startsWith("jwt_token="))
+                .map(value -> value.substring(0, value.indexOf(';')))
+                .findFirst()
+                .ifPresent(cookie -> session.cookie = cookie);
+        if (session.cookie == null) {
+            throw new IllegalStateException("登录失败: " + response.body());
+        }
+        return response.statusCode();
+    }
+
+    Report run(int concurrency, int seconds, Endpoint[] mix) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        int endpoints = Endpoint.values().length;
+        Samples[][] samples = new Samples[concurrency][endpoints];
+
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                Samples[] mine = samples[w];
+                for (int e = 0; e < endpoints; e++) {
+                    mine[e] = new Samples();
+                }
+                Session session = sessions.get(w % sessions.size());
+                workers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = mix[random.nextInt(mix.length)];
+                        long begin = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = call(endpoint, session, random) == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        mine[endpoint.ordinal()].add(System.nanoTime() - begin, ok);
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // 每个客户端各自记录, 结束后按接口合并
+        Map<Endpoint, Samples> merged = new LinkedHashMap<>();
+        for (Endpoint endpoint : Endpoint.values()) {
+            Samples all = new Samples();
+            for (Samples[] worker : samples) {
+                all.addAll(worker[endpoint.ordinal()]);
+            }
+            if (all.count > 0) {
+                all.sort();
+                merged.put(endpoint, all);
+            }
+        }
+        return new Report(merged, elapsed);
+    }
+
+    private int call(Endpoint endpoint, Session session, ThreadLocalRandom random) throws IOException, InterruptedException {
+        return switch (endpoint) {
+            case login -> login(session);
+            case user -> send(get(session, "/user")).statusCode();
+            case lists -> send(get(session, "/list")).statusCode();
+            case listsExpand -> send(get(session, "/list?expand=tasks")).statusCode();
+            case taskPage -> send(get(session, "/list/" + pick(session.listIds, random) + "/tasks?limit=50")).statusCode();
+            case getTask -> send(get(session, "/task/" + pick(session.taskIds, random))).statusCode();
+            case batchGet -> {
+                long[] ids = new long[Math.min(50, session.taskIds.length)];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = pick(session.taskIds, random);
+                }
+                yield send(post(session, "/task/batch", MAPPER.writeValueAsString(Map.of("ids", ids)))).statusCode();
+            }
+            case createTask -> send(post(session, "/task", MAPPER.writeValueAsString(
+                    newTask(session.categories[random.nextInt(session.categories.length)], "new-task")))).statusCode();
+            case updateTask -> send(patch(session, "/task/" + pick(session.taskIds, random),
+                    MAPPER.writeValueAsString(Map.of("status", random.nextBoolean())))).statusCode();
+            case dueThisWeek -> {
+                long now = System.currentTimeMillis() / 1000;
+                yield send(get(session, "/task/query?status=false&deadlineAfter=" + now
+                        + "&deadlineBefore=" + (now + 7 * 24 * 3600) + "&limit=50")).statusCode();
+            }
+            // 种子任务名为 task-0 .. task-n, 数字按前缀匹配
+            case search -> send(get(session, "/task/search?q=task%20" + random.nextInt(100) + "&limit=20")).statusCode();
+        };
+    }
+
+    private static long pick(long[] values, ThreadLocalRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // 截止时间分布在之后 30 天内, dueThisWeek 能查到约四分之一的任务
+    private static Map<String, Object> newTask(String category, String name) {
+        long deadline = System.currentTimeMillis() / 1000 + ThreadLocalRandom.current().nextLong(3600, 30L * 24 * 3600);
+        return Map.of("category", category, "name", name, "status", false, "taskDescription", "load test task",
+                "deadline", deadline);
+    }
+
+    private static String credentials(Session session) throws IOException {
+        return MAPPER.writeValueAsString(Map.of("username", session.username, "password", PASSWORD));
+    }
+
+    private HttpRequest get(Session session, String path) {
+        return builder(session, path).GET().build();
+    }
+
+    private HttpRequest post(Session session, String path, String json) {
+        return builder(session, path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest patch(Session session, String path, String json) {
+        return builder(session, path)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest.Builder builder(Session session, String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        if (session != null && session.cookie != null) {
+            builder.header("Cookie", session.cookie);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    // 按权重展开成数组, 随机取一个下标即按比例选中接口
+    static Endpoint[] parseMix(String mix) {
+        List<Endpoint> weighted = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            Endpoint endpoint = Endpoint.valueOf(kv[0].trim());
+            int weight = Integer.parseInt(kv[1].trim());
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("--mix 中至少要有一个权重大于 0 的接口");
+        }
+        return weighted.toArray(new Endpoint[0]);
+    }
+
+    // 一个接口的延迟样本 (纳秒)
+    static final class Samples {
+        long[] latencies = new long[256];
+        int count;
+        long errors;
+
+        void add(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, count + other.count);
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        void sort() {
+            Arrays.sort(latencies, 0, count);
+        }
+
+        double percentileMillis(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p / 100 * count) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+
+    record Report(Map<Endpoint, Samples> endpoints, long elapsedNanos) {
+        double throughput(Samples samples) {
+            return samples.count / (elapsedNanos / 1e9);
+        }
+
+        void print(String label) {
+            System.out.printf("%n[%s] %.1fs%n", label, elapsedNanos / 1e9);
+            System.out.printf("%-12s %10s %8s %12s %10s %10s %10s%n",
+                    "endpoint", "requests", "errors", "throughput", "p50(ms)", "p95(ms)", "p99(ms)");
+            Samples total = new Samples();
+            endpoints.forEach((endpoint, samples) -> {
+                printRow(endpoint.name(), samples);
+                total.addAll(samples);
+            });
+            total.sort();
+            printRow("TOTAL", total);
+        }
+
+        private void printRow(String name, Samples samples) {
+            System.out.printf("%-12s %10d %8d %10.1f/s %10.2f %10.2f %10.2f%n",
+                    name, samples.count, samples.errors, throughput(samples),
+                    samples.percentileMillis(50), samples.percentileMillis(95), samples.percentileMillis(99));
+        }
+
+        Map<String, Object> toBaseline(String label) {
+            Map<String, Object> rows = new LinkedHashMap<>();
+            endpoints.forEach((endpoint, samples) -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("requests", samples.count);
+                row.put("errors", samples.errors);
+                row.put("throughput", throughput(samples));
+                row.put("p50", samples.percentileMillis(50));
+                row.put("p95", samples.percentileMillis(95));
+                row.put("p99", samples.percentileMillis(99));
+                rows.put(endpoint.name(), row);
+            });
+            Map<String, Object> baseline = new LinkedHashMap<>();
+            baseline.put("label", label);
+            baseline.put("endpoints", rows);
+            return baseline;
+        }
+
+        // 返回是否有接口退化. 基线中没有的接口不参与对比
+        boolean compare(JsonNode baseline, double threshold) {
+            System.out.printf("%n与基线 [%s] 对比, 阈值 %.0f%%%n", baseline.path("label").asText(), threshold);
+            System.out.printf("%-12s %12s %12s%n", "endpoint", "throughput", "p99");
+            boolean regressed = false;
+            for (Map.Entry<Endpoint, Samples> entry : endpoints.entrySet()) {
+                JsonNode base = baseline.path("endpoints").path(entry.getKey().name());
+                if (base.isMissingNode()) {
+                    continue;
+                }
+                Samples samples = entry.getValue();
+                double throughputChange = change(base.path("throughput").asDouble(), throughput(samples));
+                double p99Change = change(base.path("p99").asDouble(), samples.percentileMillis(99));
+                boolean bad = throughputChange < -threshold || p99Change > threshold;
+                regressed |= bad;
+                System.out.printf("%-12s %+11.1f%% %+11.1f%% %s%n",
+                        entry.getKey().name(), throughputChange, p99Change, bad ? "REGRESSION" : "");
+            }
+            return regressed;
+        }
+
+        private static double change(double before, double after) {
+            return before == 0 ? 0 : (after - before) / before * 100;
+        }
+    }
+}
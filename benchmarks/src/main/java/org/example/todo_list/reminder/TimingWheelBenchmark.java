@@ -0,0 +1,48 @@
+package org.example.todo_list.reminder;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 时间轮放入 entries 个在一天内随机分布的提醒 (fill), 以及放入后推进一天让全部到期 (fillAndDrain), 参数与 ReminderScheduler 相同
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimingWheelBenchmark {
+    private static final long START = 1_900_000_000L;
+    private static final int WINDOW = 86400;
+
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    private long[] times;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        times = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            times[i] = START + 1 + random.nextInt(WINDOW);
+        }
+    }
+
+    @Benchmark
+    public TimingWheel fill() {
+        TimingWheel wheel = new TimingWheel(6, 4, START);
+        for (int i = 0; i < times.length; i++) {
+            wheel.add(i, times[i]);
+        }
+        return wheel;
+    }
+
+    @Benchmark
+    public void fillAndDrain(Blackhole blackhole) {
+        TimingWheel wheel = fill();
+        wheel.advanceTo(START + WINDOW, (id, time) -> blackhole.consume(id));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.todo_list.search;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// 一个用户有 tasks 个任务时的搜索耗时 (search), 以及从头建立索引 (build). 任务名和备注从一组中英文词中随机组合
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskSearchBenchmark {
+    private static final String[] WORDS = {
+            "report", "review", "meeting", "release", "deploy", "invoice", "budget", "design", "refactor", "backup",
+            "学习", "计划", "周报", "复习", "会议", "采购", "报销", "面试", "体检", "搬家"
+    };
+
+    @Param({"10000", "100000"})
+    public int tasks;
+
+    // 常见词, 多个词, 中文, 单字母前缀 (匹配很多词)
+    @Param({"report", "review q3", "周报", "r"})
+    public String query;
+
+    private String[] names;
+    private String[] descriptions;
+    private UserTaskIndex index;
+    private List<String> queryTerms;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        names = new String[tasks];
+        descriptions = new String[tasks];
+        for (int i = 0; i < tasks; i++) {
+            names[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " q" + random.nextInt(4);
+            descriptions[i] = random.nextBoolean() ? null : WORDS[random.nextInt(WORDS.length)] + " note-" + i;
+        }
+        index = build();
+        Set<String> terms = new LinkedHashSet<>();
+        Tokenizer.tokenizeQuery(query, terms::add);
+        queryTerms = new ArrayList<>(terms);
+    }
+
+    @Benchmark
+    public SearchResult search() {
+        return index.search(queryTerms, 20);
+    }
+
+    @Benchmark
+    public UserTaskIndex build() {
+        UserTaskIndex built = new UserTaskIndex();
+        built.ensureBuilt(i -> {
+            for (int t = 0; t < names.length; t++) {
+                i.put(t, names[t], descriptions[t]);
+            }
+        });
+        return built;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.todo_list.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JwtInterceptor.preHandle 每个请求的鉴权开销, legacy* 是改造前的实现, 用来对比
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtInterceptorBenchmark {
+    static final String SECRET = "8J6bZzqkRtA7X9LvMwYhN2PpQeFjHnKsDcV4BfGxTqWu3yJ5rCt0Oa1iEoUl+/M=";
+
+    private JwtInterceptor interceptor;
+    private LegacyJwtInterceptor legacyInterceptor;
+    private MockHttpServletRequest authenticatedRequest;
+    private MockHttpServletRequest excludedRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        JwtUtils jwtUtils = newJwtUtils();
+        interceptor = new JwtInterceptor(jwtUtils, new SimpleMeterRegistry());
+        legacyInterceptor = new LegacyJwtInterceptor();
+
+        String token = jwtUtils.generateToken(42L);
+        authenticatedRequest = new MockHttpServletRequest("GET", "/list/1");
+        // 浏览器通常还会带上其他 cookie
+        authenticatedRequest.setCookies(
+                new Cookie("theme", "dark"),
+                new Cookie("jwt_token", token),
+                new Cookie("locale", "zh-CN"));
+
+        excludedRequest = new MockHttpServletRequest("GET", "/swagger-ui/index.html");
+        response = new MockHttpServletResponse();
+    }
+
+    static JwtUtils newJwtUtils() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setExpiration(3600);
+        JwtUtils jwtUtils = new JwtUtils(properties);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    @Benchmark
+    public boolean authenticated() {
+        return interceptor.preHandle(authenticatedRequest, response, null);
+    }
+
+    @Benchmark
+    public boolean legacyAuthenticated() {
+        return legacyInterceptor.preHandle(authenticatedRequest);
+    }
+
+    @Benchmark
+    public boolean excluded() {
+        return interceptor.preHandle(excludedRequest, response, null);
+    }
+
+    @Benchmark
+    public boolean legacyExcluded() {
+        return legacyInterceptor.preHandle(excludedRequest);
+    }
+
+    // 改造前的 JwtInterceptor + JwtUtils.parseToken: 每个请求重新匹配所有模式, 重建密钥和 parser 并验签
+    static class LegacyJwtInterceptor {
+        private final PathMatcher pathMatcher = new AntPathMatcher();
+        private final List<String> EXCLUDE_PATH =
+                new ArrayList<>(Arrays.asList(
+                        "/images/**",
+                        "/user/log*",
+                        "/user/register",
+                        "/v3/api-docs/**",
+                        "/swagger-ui*",
+                        "/swagger-ui/**",
+                        "/swagger-resources/**",
+                        "/webjars/**"));
+
+        boolean preHandle(HttpServletRequest request) {
+            if (request.getMethod().equals("OPTIONS")) {
+                return true;
+            }
+
+            Cookie[] cookies = request.getCookies();
+            String requestURI = request.getRequestURI();
+            if (EXCLUDE_PATH.stream().anyMatch(pattern -> pathMatcher.match(pattern, requestURI))) {
+                return true;
+            }
+
+            List<Claims> res = new ArrayList<>();
+            for (Cookie cookie : cookies) {
+                if (cookie.getName().equals("jwt_token")) {
+                    res.add(Jwts.parser()
+                            .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                            .build()
+                            .parseSignedClaims(cookie.getValue())
+                            .getPayload());
+                }
+            }
+            request.setAttribute("userId", res.getFirst().get("userId", Long.class));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.todo_list.security;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 签发 token, 以及命中/未命中已验签缓存时解析 token 的开销
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+    private JwtUtils jwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtils = JwtInterceptorBenchmark.newJwtUtils();
+
+        // 缓存大小为 0, 每次都完整验签
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(JwtInterceptorBenchmark.SECRET);
+        properties.setExpiration(3600);
+        properties.setCacheMaxSize(0);
+        uncachedJwtUtils = new JwtUtils(properties);
+        uncachedJwtUtils.init();
+
+        token = jwtUtils.generateToken(42L);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(42L);
+    }
+
+    @Benchmark
+    public Claims parseTokenCached() {
+        return jwtUtils.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims parseTokenUncached() {
+        return uncachedJwtUtils.parseToken(token);
+    }
+}
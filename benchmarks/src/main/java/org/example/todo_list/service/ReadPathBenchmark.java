@@ -0,0 +1,163 @@
+package org.example.todo_list.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.todo_list.cache.UserSummaryCache;
+import org.example.todo_list.dto.request.BatchGetTaskRequest;
+import org.example.todo_list.repository.ReadPathProperties;
+import org.example.todo_list.repository.jpa.TaskRepository;
+import org.example.todo_list.repository.jpa.TodoListRepository;
+import org.example.todo_list.repository.jpa.UserRepository;
+import org.example.todo_list.repository.mybatis.TaskMapper;
+import org.example.todo_list.repository.mybatis.TodoListMapper;
+import org.example.todo_list.repository.mybatis.UserMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.boot.model.naming.PhysicalNamingStrategyStandardImpl;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 热点读操作的 JPA 与 MyBatis 实现对比 (ReadPathProperties), 通过服务方法调用, 包含结果转换成响应对象的开销.
+ * 数据在内存 H2 (MySQL 兼容模式) 中: 1 个用户, 10 个列表, 每个列表 50 个任务.
+ * 分配量用 GC profiler 查看: benchmarks/run.sh ReadPath -prof gc (看 gc.alloc.rate.norm, 每次调用分配的字节数)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+    private static final int LISTS = 10;
+    private static final int TASKS_PER_LIST = 50;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"JPA", "MYBATIS"})
+    public ReadPathProperties.Impl impl;
+
+    private EntityManagerFactory entityManagerFactory;
+    private TodoListService todoListService;
+    private TaskService taskService;
+    private UserService userService;
+    private UserSummaryCache userSummaryCache;
+
+    private Long userId;
+    private Long taskId;
+    private BatchGetTaskRequest batchRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:read-path;MODE=MySQL;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        // JPA: 与应用相同的实体和命名策略, 由 Hibernate 建表
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("org.example.todo_list.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy", PhysicalNamingStrategyStandardImpl.class.getName()));
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        TaskRepository taskRepository = repositoryFactory.getRepository(TaskRepository.class);
+        TodoListRepository todoListRepository = repositoryFactory.getRepository(TodoListRepository.class);
+        UserRepository userRepository = repositoryFactory.getRepository(UserRepository.class);
+
+        // MyBatis: 与 application.yml 中相同的 mapper 和类型别名
+        SqlSessionFactoryBean sqlSessionFactoryBean = new SqlSessionFactoryBean();
+        sqlSessionFactoryBean.setDataSource(dataSource);
+        sqlSessionFactoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+        sqlSessionFactoryBean.setTypeAliasesPackage(
+                "org.example.todo_list.dto.response,org.example.todo_list.repository.mybatis.projection");
+        SqlSessionTemplate sqlSession = new SqlSessionTemplate(sqlSessionFactoryBean.getObject());
+
+        ReadPathProperties readPath = new ReadPathProperties();
+        readPath.setLists(impl);
+        readPath.setTask(impl);
+        readPath.setTasks(impl);
+        readPath.setUser(impl);
+
+        // 读操作用不到的依赖传 null
+        todoListService = new TodoListService(todoListRepository, taskRepository, null, null, null, null,
+                sqlSession.getMapper(TodoListMapper.class), readPath);
+        taskService = new TaskService(taskRepository, todoListRepository, todoListService, userRepository, null, null, null,
+                sqlSession.getMapper(TaskMapper.class), readPath, null, null, null);
+        userSummaryCache = new UserSummaryCache(1000);
+        userService = new UserService(userRepository, null, userSummaryCache, null, null,
+                sqlSession.getMapper(UserMapper.class), readPath);
+
+        seed(new JdbcTemplate(dataSource));
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        jdbc.update("insert into User (username, password, avatarUrl) values ('bench', 'x', '/images/bench_64.png')");
+        userId = jdbc.queryForObject("select id from User where username = 'bench'", Long.class);
+        List<Long> taskIds = new ArrayList<>();
+        for (int l = 0; l < LISTS; l++) {
+            jdbc.update("insert into TodoList (category, user_id) values (?, ?)", "list-" + l, userId);
+            Long listId = jdbc.queryForObject("select id from TodoList where user_id = ? and category = ?",
+                    Long.class, userId, "list-" + l);
+            List<Object[]> rows = new ArrayList<>();
+            for (int t = 0; t < TASKS_PER_LIST; t++) {
+                rows.add(new Object[]{"task-" + t, "benchmark task " + t, 1_900_000_000L + t, t % 2 == 0, listId});
+            }
+            jdbc.batchUpdate("insert into Task (name, description, deadline, status, todo_list_id) values (?, ?, ?, ?, ?)", rows);
+            taskIds.addAll(jdbc.queryForList("select id from Task where todo_list_id = ? order by id", Long.class, listId));
+        }
+        taskId = taskIds.get(taskIds.size() / 2);
+        // 分散在不同列表中的任务
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            ids.add(taskIds.get(i * taskIds.size() / BATCH_SIZE));
+        }
+        batchRequest = new BatchGetTaskRequest(ids);
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public Object lists() {
+        return todoListService.getAllLists(userId);
+    }
+
+    @Benchmark
+    public Object listsWithTasks() {
+        return todoListService.getAllListsWithTasks(userId, TASKS_PER_LIST);
+    }
+
+    @Benchmark
+    public Object task() {
+        return taskService.getTask(taskId, userId);
+    }
+
+    @Benchmark
+    public Object tasks() {
+        return taskService.getTasks(batchRequest, userId);
+    }
+
+    // 每次先清掉摘要缓存, 测量的是缓存未命中时的加载
+    @Benchmark
+    public Object user() {
+        userSummaryCache.invalidate(userId);
+        return userService.getUserSummary(userId);
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.todo_list.service;
+
+import org.example.todo_list.exception.TaskException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+// TaskService.validateDeadline: 合法的截止时间, 为空, 以及过去时间 (抛出异常) 三种情况
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskServiceBenchmark {
+    private Long futureDeadline;
+    private Long pastDeadline;
+
+    @Setup
+    public void setup() {
+        futureDeadline = Instant.now().plusSeconds(30L * 24 * 3600).getEpochSecond();
+        pastDeadline = Instant.now().minusSeconds(3600).getEpochSecond();
+    }
+
+    @Benchmark
+    public void validDeadline() {
+        TaskService.validateDeadline(futureDeadline);
+    }
+
+    @Benchmark
+    public void nullDeadline() {
+        TaskService.validateDeadline(null);
+    }
+
+    @Benchmark
+    public void pastDeadline(Blackhole blackhole) {
+        try {
+            TaskService.validateDeadline(pastDeadline);
+        } catch (TaskException e) {
+            blackhole.consume(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.todo_list.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.todo_list.dto.response.GetListResponse;
+import org.example.todo_list.dto.response.GetTaskResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 常见响应体的 Jackson 序列化开销, ObjectMapper 与 Spring MVC 使用的配置相同
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    // 列表数量和每个列表中的任务数量
+    @Param({"5", "50"})
+    public int lists;
+
+    @Param({"20"})
+    public int tasksPerList;
+
+    private ObjectMapper mapper;
+    private ApiResponse<List<GetListResponse>> listsResponse;
+    private ApiResponse<GetTaskResponse> taskResponse;
+
+    @Setup
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<GetListResponse> data = new ArrayList<>(lists);
+        long taskId = 1;
+        for (int i = 0; i < lists; i++) {
+            List<Long> tasks = new ArrayList<>(tasksPerList);
+            for (int j = 0; j < tasksPerList; j++) {
+                tasks.add(taskId++);
+            }
+            data.add(new GetListResponse((long) i + 1, "category-" + i, tasks));
+        }
+        listsResponse = ApiResponse.success(data);
+
+        taskResponse = ApiResponse.success(GetTaskResponse.builder()
+                .id(42L)
+                .name("写周报")
+                .description("整理本周完成的任务, 周五下班前发出")
+                .deadline(1830268799L)
+                .status(false)
+                .build());
+    }
+
+    @Benchmark
+    public byte[] listsResponse() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(listsResponse);
+    }
+
+    @Benchmark
+    public byte[] taskResponse() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(taskResponse);
+    }
+}
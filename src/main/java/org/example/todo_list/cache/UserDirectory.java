@@ -0,0 +1,115 @@
+package org.example.todo_list.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.todo_list.repository.jpa.TaskRepository;
+import org.example.todo_list.repository.jpa.TodoListRepository;
+import org.example.todo_list.repository.jpa.projection.ListCategoryRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 用户目录: 类别 -> 列表id, 列表id -> 所属用户, 任务id -> 列表id.
+ * 新建/修改/删除任务和列表时用它定位目标列表并检查归属, 缓存命中时不需要查询数据库.
+ * 所有写操作成功后必须调用对应的 listXxx/taskXxx 方法同步更新 (write-through).
+ */
+@Component
+public class UserDirectory {
+    private final TodoListRepository todoListRepository;
+    private final TaskRepository taskRepository;
+
+    // userId -> (category -> listId), 每个用户的类别是一次性完整加载的
+    private final Cache<Long, Map<String, Long>> categoriesByUser;
+    // listId -> userId
+    private final Cache<Long, Long> ownerByList;
+    // taskId -> listId
+    private final Cache<Long, Long> listByTask;
+
+    public UserDirectory(TodoListRepository todoListRepository,
+                         TaskRepository taskRepository,
+                         @Value("${cache.directory.max-users}") long maxUsers,
+                         @Value("${cache.directory.max-entries}") long maxEntries) {
+        this.todoListRepository = todoListRepository;
+        this.taskRepository = taskRepository;
+        this.categoriesByUser = Caffeine.newBuilder().maximumSize(maxUsers).build();
+        this.ownerByList = Caffeine.newBuilder().maximumSize(maxEntries).build();
+        this.listByTask = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    // 返回用户某个类别对应的列表 id, 不存在时返回 null
+    public Long findListId(Long userId, String category) {
+        return categories(userId).get(category);
+    }
+
+    // 返回列表所属的用户 id, 列表不存在时返回 null
+    public Long ownerOfList(Long listId) {
+        return ownerByList.get(listId, id -> todoListRepository.findOwnerIdById(id).orElse(null));
+    }
+
+    // 返回任务所在的列表 id, 任务不存在时返回 null
+    public Long listOfTask(Long taskId) {
+        return listByTask.get(taskId, id -> taskRepository.findTodoListIdById(id).orElse(null));
+    }
+
+    public boolean ownsList(Long userId, Long listId) {
+        return userId.equals(ownerOfList(listId));
+    }
+
+    public boolean ownsTask(Long userId, Long taskId) {
+        Long listId = listOfTask(taskId);
+        return listId != null && ownsList(userId, listId);
+    }
+
+    public void listCreated(Long userId, String category, Long listId) {
+        ownerByList.put(listId, userId);
+        Map<String, Long> categories = categoriesByUser.getIfPresent(userId);
+        if (categories != null) {
+            categories.put(category, listId);
+        }
+    }
+
+    public void listCategoryChanged(Long userId, Long listId, String newCategory) {
+        Map<String, Long> categories = categoriesByUser.getIfPresent(userId);
+        if (categories != null) {
+            categories.values().remove(listId);
+            categories.put(newCategory, listId);
+        }
+    }
+
+    // 列表中任务的 taskId -> listId 映射不需要逐个删除: 列表不存在后 ownsTask 自然返回 false
+    public void listDeleted(Long userId, Long listId) {
+        ownerByList.invalidate(listId);
+        Map<String, Long> categories = categoriesByUser.getIfPresent(userId);
+        if (categories != null) {
+            categories.values().remove(listId);
+        }
+    }
+
+    // 事务回滚时调用, 下次访问重新从数据库加载该用户的类别
+    public void invalidateUser(Long userId) {
+        categoriesByUser.invalidate(userId);
+    }
+
+    public void taskSaved(Long taskId, Long listId) {
+        listByTask.put(taskId, listId);
+    }
+
+    public void taskDeleted(Long taskId) {
+        listByTask.invalidate(taskId);
+    }
+
+    // 第一次访问某个用户时用一条查询加载他的全部类别, 同时预热列表归属
+    private Map<String, Long> categories(Long userId) {
+        return categoriesByUser.get(userId, id -> {
+            Map<String, Long> categories = new ConcurrentHashMap<>();
+            for (ListCategoryRow row : todoListRepository.findCategoriesByUserId(id)) {
+                categories.put(row.category(), row.listId());
+                ownerByList.put(row.listId(), id);
+            }
+            return categories;
+        });
+    }
+}
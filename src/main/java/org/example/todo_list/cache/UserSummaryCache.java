@@ -0,0 +1,69 @@
+package org.example.todo_list.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.example.todo_list.dto.response.UserResponse;
+import org.example.todo_list.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+// 用户摘要(id, 用户名, 头像)的本地缓存, 可以按 id 或用户名查找. 修改用户信息或头像时必须调用 invalidate
+@Component
+public class UserSummaryCache {
+    private final Cache<Long, UserResponse> byId;
+    private final Cache<String, Long> idByUsername;
+
+    public UserSummaryCache(@Value("${cache.user.max-size}") long maxSize) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.idByUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public UserResponse get(Long id, Function<Long, UserResponse> loader) {
+        UserResponse summary = byId.get(id, loader);
+        if (summary != null) {
+            idByUsername.put(summary.username(), summary.id());
+        }
+        return summary;
+    }
+
+    // 只查缓存, 不会访问数据库
+    public UserResponse getIfPresent(String username) {
+        Long id = idByUsername.getIfPresent(username);
+        return id == null ? null : byId.getIfPresent(id);
+    }
+
+    public UserResponse put(User user) {
+        UserResponse summary = toSummary(user);
+        byId.put(summary.id(), summary);
+        idByUsername.put(summary.username(), summary.id());
+        return summary;
+    }
+
+    public void invalidate(Long id) {
+        UserResponse old = byId.getIfPresent(id);
+        if (old != null) {
+            idByUsername.invalidate(old.username());
+        }
+        byId.invalidate(id);
+    }
+
+    public CacheStats stats() {
+        return byId.stats();
+    }
+
+    public static UserResponse toSummary(User user) {
+        return UserResponse.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .avatarUrl(user.getAvatarUrl())
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.todo_list.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.example.todo_list.monitoring.SqlStatementListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// 用 datasource-proxy 包装连接池, JPA, MyBatis 和 JdbcTemplate 执行的语句都经过 SqlStatementListener
+@Configuration
+public class DataSourceProxyConfig {
+    // BeanPostProcessor 必须是 static, 不能提前初始化这个配置类; MeterRegistry 延迟到第一次执行语句时获取
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        SqlStatementListener listener = new SqlStatementListener(meterRegistry);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    // 连接池指标 (hikaricp.*) 通过 unwrap 找到被包装的 HikariDataSource, 不受影响
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(listener)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
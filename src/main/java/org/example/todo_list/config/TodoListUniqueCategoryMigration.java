@@ -0,0 +1,114 @@
+package org.example.todo_list.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * 保证 TodoList 上有 (user_id, category) 唯一索引. 新建列表 (TodoListInsertRepository) 依赖它判断类别已存在,
+ * 没有这个索引时并发创建会静默产生重复的列表.
+ * ddl-auto: update 在表中已有重复数据时添加索引失败, 只打印日志后继续启动, 所以不能依赖它:
+ * 启动时 (Hibernate 建表之后, 开始接收请求之前) 先合并重复的列表, 再补上索引, 最后检查索引确实存在, 不存在时启动失败.
+ * 已经有索引的库上只多一次元数据查询和一条分组查询.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class TodoListUniqueCategoryMigration implements InitializingBean {
+    private static final String CONSTRAINT_NAME = "uk_todo_list_user_id_category";
+    private static final String TABLE = "TodoList";
+    private static final Set<String> COLUMNS = Set.of("user_id", "category");
+
+    // 每组重复的列表保留 id 最小的一个
+    private static final String DUPLICATES_SQL =
+            "select user_id, category, min(id) as keep_id from TodoList " +
+            "where user_id is not null and category is not null " +
+            "group by user_id, category having count(*) > 1";
+    private static final String MOVE_TASKS_SQL =
+            "update Task set todo_list_id = ? where todo_list_id in " +
+            "(select id from TodoList where user_id = ? and category = ? and id <> ?)";
+    private static final String DELETE_LISTS_SQL =
+            "delete from TodoList where user_id = ? and category = ? and id <> ?";
+    private static final String ADD_CONSTRAINT_SQL =
+            "alter table TodoList add constraint " + CONSTRAINT_NAME + " unique (user_id, category)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+
+    public TodoListUniqueCategoryMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (hasUniqueIndex()) {
+            return;
+        }
+        log.warn("TodoList 缺少 (user_id, category) 唯一索引, 开始合并重复的列表");
+        mergeDuplicates();
+        jdbcTemplate.execute(ADD_CONSTRAINT_SQL);
+        if (!hasUniqueIndex()) {
+            throw new IllegalStateException("无法为 TodoList 添加唯一索引 " + CONSTRAINT_NAME + ", 请检查表中的重复数据");
+        }
+        log.info("已添加唯一索引 {}", CONSTRAINT_NAME);
+    }
+/* TODO 启动时检查列表类别唯一索引 --- ok
+开始 (Hibernate 建表之后)
+├─→ 已有 (user_id, category) 唯一索引 → 结束
+├─→ 查询重复的 (user_id, category), 每组保留 id 最小的列表
+│   └─→ 每组一个事务: 其他列表的任务移到保留的列表 → 删除其他列表
+├─→ 添加唯一索引
+└─→ 再次检查 → 仍然没有 → 启动失败
+*/
+
+    private void mergeDuplicates() {
+        List<Map<String, Object>> groups = jdbcTemplate.queryForList(DUPLICATES_SQL);
+        for (Map<String, Object> group : groups) {
+            Object userId = group.get("user_id");
+            Object category = group.get("category");
+            Object keepId = group.get("keep_id");
+            int[] counts = transaction.execute(status -> new int[]{
+                    jdbcTemplate.update(MOVE_TASKS_SQL, keepId, userId, category, keepId),
+                    jdbcTemplate.update(DELETE_LISTS_SQL, userId, category, keepId)
+            });
+            log.warn("合并重复的列表 [用户ID:{}, 类别:{}, 保留列表:{}, 删除列表:{}, 移动任务:{}]",
+                    userId, category, keepId, counts[1], counts[0]);
+        }
+    }
+
+    // 表上是否有恰好由 (user_id, category) 组成的唯一索引, 不要求索引名一致
+    private boolean hasUniqueIndex() {
+        Boolean found = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            String table = meta.storesUpperCaseIdentifiers() ? TABLE.toUpperCase(Locale.ROOT)
+                    : meta.storesLowerCaseIdentifiers() ? TABLE.toLowerCase(Locale.ROOT) : TABLE;
+            Map<String, Set<String>> indexes = new HashMap<>();
+            try (ResultSet rs = meta.getIndexInfo(con.getCatalog(), null, table, true, true)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        indexes.computeIfAbsent(index, k -> new HashSet<>()).add(column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return indexes.containsValue(COLUMNS);
+        });
+        return Boolean.TRUE.equals(found);
+    }
+}
@@ -1,24 +1,17 @@
 package org.example.todo_list.config;
 
 import lombok.RequiredArgsConstructor;
+import org.example.todo_list.security.AuthExcludePaths;
 import org.example.todo_list.security.JwtInterceptor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import java.nio.file.Paths;
-
 @Configuration
 @RequiredArgsConstructor
 public class WebMVCConfig implements WebMvcConfigurer {
     private final JwtInterceptor jwtInterceptor;
-    @Value("${file.upload-dir}")
-    private String uploadDir;
-    @Value("${file.access-path}")
-    private String accessPath;
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
@@ -34,20 +27,6 @@ public class WebMVCConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(jwtInterceptor)
                 .addPathPatterns("/**")               // 拦截所有路径
-                .excludePathPatterns(
-                        "/auth/**",
-                 //    "/user/**",
-                        "/static/**",
-                        "/v3/api-docs/**",
-                        "/swagger-ui/**",
-                        "/swagger-resources/**",
-                        "/webjars/**");
-    }
-
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        String absolutePath = Paths.get(uploadDir).toAbsolutePath().toString().replace("\\", "/");
-        registry.addResourceHandler(accessPath)
-                .addResourceLocations("file:" + uploadDir + "/");
+                .excludePathPatterns(AuthExcludePaths.PATTERNS);   // 与 JwtInterceptor 共用同一份排除列表
     }
 }
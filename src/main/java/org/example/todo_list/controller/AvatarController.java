@@ -0,0 +1,182 @@
+package org.example.todo_list.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.example.todo_list.service.AvatarService;
+import org.example.todo_list.service.AvatarService.Avatar;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+@Tag(name = "头像Api", description = "读取用户上传的头像, 不需要登录")
+@RestController
+@RequiredArgsConstructor// 通过 Lombok 自动生成包含所有 final 字段的构造函数，简化代码书写。
+public class AvatarController {
+    // 文件名不会指向不同的内容, 浏览器和 CDN 可以一直缓存
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Tomcat NIO 连接器的 sendfile 支持, 由内核直接把文件发送到 socket
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // parseRange 的返回值: 范围超出文件长度
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private final AvatarService avatarService;
+
+    @Operation(summary = "获取头像",
+            description = "返回强 ETag 和长期缓存头. 支持 If-None-Match (304) 和单个字节范围 Range (206)")
+    @RequestMapping(value = "/images/{filename:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getAvatar(@PathVariable String filename,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        String etag = AvatarService.etag(filename);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+
+        // 文件内容不会变, 校验只需要比较文件名; 但文件必须存在 (缓存命中或磁盘上有), 否则 * 和不存在文件的 ETag 也会得到 304
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag) && avatarService.exists(filename)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        Avatar avatar = avatarService.find(filename);
+        if (avatar == null) {
+            response.reset();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(avatar.mediaType().toString());
+
+        long start = 0;
+        long end = avatar.length() - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, avatar.length());
+            if (bounds == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + avatar.length());
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + avatar.length());
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (RequestMethod.HEAD.name().equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (avatar.bytes() != null) {
+            response.getOutputStream().write(avatar.bytes(), (int) start, (int) length);
+        } else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, avatar.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+        } else {
+            transfer(avatar, start, length, response.getOutputStream());
+        }
+    }
+/* TODO 获取头像 --- ok
+开始
+├─→ If-None-Match 与文件名一致 (或为 *) 且文件存在 (内存缓存命中或磁盘上有, 不读取内容) → 304 → 结束
+├─→ 查找文件 (热点小文件在内存缓存中)
+│   └─→ 不存在或文件名不合法 → 404 → 结束
+├─→ 解析 Range (只支持单个范围, 多个范围按完整文件返回)
+│   ├─→ 超出文件长度 → 416 → 结束
+│   └─→ 合法 → 206 + Content-Range
+└─→ 写出内容
+    ├─→ 内存中有 → 直接写出
+    ├─→ 连接器支持 sendfile → 交给 Tomcat 由内核发送
+    └─→ 否则 → 经过缓冲区复制到响应流 (不是零拷贝)
+*/
+
+    // 返回 [start, end] (包含 end); 格式不支持时返回 null, 表示忽略 Range 返回完整文件
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // bytes=-n 表示最后 n 个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[]{Math.max(length - suffix, 0), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return start > end ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match 使用弱比较
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 不支持 sendfile 时的退路. 目标是包装响应流的 WritableByteChannel, 不是 socket, transferTo 无法使用内核的 sendfile,
+    // 实际是读入临时缓冲区再写入响应流, 与普通的流复制相同, 只是不用自己管理缓冲区
+    private static void transfer(Avatar avatar, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel file = FileChannel.open(avatar.path(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long written = file.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.todo_list.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.example.todo_list.dto.response.ReminderResponse;
+import org.example.todo_list.reminder.InboxReminderSink;
+import org.example.todo_list.utils.ApiResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Tag(name = "任务提醒Api", description = "获取任务截止日期提醒")
+@RestController
+@RequestMapping("/reminder")
+@RequiredArgsConstructor// 通过 Lombok 自动生成包含所有 final 字段的构造函数，简化代码书写。
+public class ReminderController {
+    // reminder.sink.inbox 为 false 时不存在
+    private final ObjectProvider<InboxReminderSink> inbox;
+
+    @Operation(summary = "获取提醒",
+            description = "返回当前用户收件箱中的全部任务到期提醒 (任务id, 任务名, 截止时间), 返回后清空. 不查询数据库")
+    @GetMapping({"/", ""})
+    public ApiResponse<List<ReminderResponse>> drain(@RequestAttribute("userId") Long userId) {
+        InboxReminderSink sink = inbox.getIfAvailable();
+        return ApiResponse.success(sink == null ? List.of() : sink.drain(userId));
+    }
+}
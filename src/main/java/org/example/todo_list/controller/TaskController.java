@@ -5,11 +5,20 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.example.todo_list.dto.request.BatchGetTaskRequest;
+import org.example.todo_list.dto.request.BulkCreateTaskRequest;
 import org.example.todo_list.dto.request.CreateTaskRequest;
+import org.example.todo_list.dto.request.TaskQueryRequest;
 import org.example.todo_list.dto.request.UpdateTaskRequest;
+import org.example.todo_list.dto.response.BatchGetTaskResponse;
+import org.example.todo_list.dto.response.BulkCreateTaskResponse;
 import org.example.todo_list.dto.response.GetTaskResponse;
+import org.example.todo_list.dto.response.TaskPageResponse;
+import org.example.todo_list.dto.response.TaskSearchResponse;
+import org.example.todo_list.monitoring.SqlBudget;
 import org.example.todo_list.service.TaskService;
 import org.example.todo_list.utils.ApiResponse;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.web.bind.annotation.*;
 
 @Tag(name = "任务相关Api", description = "用于管理任务")
@@ -22,6 +31,7 @@ public class TaskController {
 
     @Operation(summary = "新建一个任务",
             description = "传入任务名, 类别.这两个是必须的. 还有非必须的 任务备注, 任务状态(是否完成, true 或者 false), 截至日期(时间戳)，返回 ApiResponse.success(\"创建任务成功\")")
+    @SqlBudget(statements = 5)
     @PostMapping({"/", ""})
     public ApiResponse<String> createTask(@Valid @RequestBody CreateTaskRequest createTaskRequest, @RequestAttribute("userId") Long userId) {
         //  TODO 新建任务 --- ok_
@@ -30,19 +40,79 @@ public class TaskController {
         return ApiResponse.success("任务创建成功");
     }
 
+    @Operation(summary = "批量新建任务",
+            description = "一次最多传入 5000 个新建任务请求, 每个任务的字段要求与新建单个任务相同. " +
+                    "不合法的任务不会导致整个请求失败, 返回值中按请求顺序给出每个任务的 id 或失败原因")
+    // 新类别各自建列表, 多批任务各自一次 batch insert, 语句数随请求内容增长
+    @SqlBudget(statements = SqlBudget.UNLIMITED, repeated = SqlBudget.UNLIMITED)
+    @PostMapping("/bulk")
+    public ApiResponse<BulkCreateTaskResponse> bulkCreateTasks(@Valid @RequestBody BulkCreateTaskRequest request,
+                                                               @RequestAttribute("userId") Long userId) {
+        // TODO 批量新建任务 --- ok
+        BulkCreateTaskResponse response = taskService.bulkCreateTasks(request, userId);
+
+        return ApiResponse.success(response);
+    }
+
     @Operation(summary = "获取一个任务",
             description = "传入任务id, 返回 task的详细信息")
+    @SqlBudget(statements = 1)
     @GetMapping("/{id}")
-    public ApiResponse<GetTaskResponse> getTask(@PathVariable Long id) {
+    public ApiResponse<GetTaskResponse> getTask(@PathVariable Long id, @RequestAttribute("userId") Long userId) {
       // TODO 根据id获取任务信息 --- ok
 
-        GetTaskResponse task = taskService.getTask(id);
+        GetTaskResponse task = taskService.getTask(id, userId);
 
         return ApiResponse.success(task);
 
     }
 
+    @Operation(summary = "批量获取任务",
+            description = "传入任务id列表, 按请求顺序返回 task 的详细信息. 不存在的 id 放在 missing 中返回, 不会导致整个请求失败")
+    @SqlBudget(statements = 1)
+    @PostMapping("/batch")
+    public ApiResponse<BatchGetTaskResponse> getTasks(@Valid @RequestBody BatchGetTaskRequest request,
+                                                      @RequestAttribute("userId") Long userId) {
+        // TODO 批量获取任务信息 --- ok
+        BatchGetTaskResponse tasks = taskService.getTasks(request, userId);
+
+        return ApiResponse.success(tasks);
+    }
+
+    @Operation(summary = "按条件查询任务",
+            description = "全部参数可选: status(是否完成), deadlineAfter/deadlineBefore(截止时间范围 [after, before), 秒级时间戳), " +
+                    "category(可以传多个), namePrefix(任务名前缀). sort 为 deadline(默认) 或 name, order 为 asc(默认) 或 desc, " +
+                    "没有截止时间的任务升序时排在最前. limit 为每页数量(默认 50, 最大 500), 第一页不传 cursor, " +
+                    "之后把上一页返回的 nextCursor 作为 cursor 传入, 其余参数保持不变. " +
+                    "例如逾期任务: status=false&deadlineBefore=现在; 本周到期: status=false&deadlineAfter=现在&deadlineBefore=一周后")
+    @SqlBudget(statements = 1)
+    @GetMapping("/query")
+    public ApiResponse<TaskPageResponse> queryTasks(@Valid @ParameterObject TaskQueryRequest request,
+                                                    @RequestAttribute("userId") Long userId) {
+        // TODO 按条件查询任务 --- ok
+        TaskPageResponse page = taskService.queryTasks(request, userId);
+
+        return ApiResponse.success(page);
+    }
+
+    @Operation(summary = "搜索任务",
+            description = "在任务名和备注中搜索关键词 q, 多个词用空格分隔, 每个词按前缀匹配, 所有词都要命中. " +
+                    "中文按相邻两个字匹配. 任务名中命中的排在备注中命中的前面. limit 为返回数量(默认 20, 最大 100), " +
+                    "total 为命中的任务总数")
+    // 第一次搜索时建立索引多一条查询
+    @SqlBudget(statements = 2)
+    @GetMapping("/search")
+    public ApiResponse<TaskSearchResponse> searchTasks(@RequestParam(value = "q", required = false) String query,
+                                                       @RequestParam(value = "limit", required = false) Integer limit,
+                                                       @RequestAttribute("userId") Long userId) {
+        // TODO 搜索任务 --- ok
+        TaskSearchResponse result = taskService.searchTasks(query, limit, userId);
+
+        return ApiResponse.success(result);
+    }
+
     @Operation(summary = "更新任务对应的参数")
+    @SqlBudget(statements = 6)
     @PatchMapping({"/{id}"})
     public ApiResponse<String> updateTask(@PathVariable Long id,
                                      @Valid @RequestBody UpdateTaskRequest updateTaskRequest, @RequestAttribute("userId") Long userId) {
@@ -53,11 +123,13 @@ public class TaskController {
     }
 
     @Operation(summary = "删除一个任务")
+    @SqlBudget(statements = 4)
     @DeleteMapping({"/{id}"})
-    public ApiResponse<String> deleteTask(@NotNull @PathVariable("id") Long id) {
+    public ApiResponse<String> deleteTask(@NotNull @PathVariable("id") Long id,
+                                          @RequestAttribute("userId") Long userId) {
         // TODO 根据 id 删除任务 --- ok
 
-        taskService.deleteTask(id);
+        taskService.deleteTask(id, userId);
 
         return ApiResponse.success(id.toString());
 
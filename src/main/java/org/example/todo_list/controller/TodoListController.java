@@ -1,11 +1,17 @@
 package org.example.todo_list.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
+import org.example.todo_list.dto.response.GetListDetailResponse;
 import org.example.todo_list.dto.response.GetListResponse;
+import org.example.todo_list.dto.response.TaskPageResponse;
+import org.example.todo_list.monitoring.SqlBudget;
 import org.example.todo_list.security.JwtUtils;
 import org.example.todo_list.service.TodoListService;
 import org.example.todo_list.utils.ApiResponse;
@@ -22,6 +28,11 @@ public class TodoListController {
 
 private final TodoListService todoListService;
 
+    // expand=tasks 映射到单独的方法, 两种响应在接口文档中都有各自的类型
+    private static final String EXPAND = "expand";
+    private static final String EXPAND_TASKS = "tasks";
+    private static final String DEFAULT_TASK_LIMIT = "100";
+
     @Operation(summary = "新建一个任务列表，返回'创建成功'字符串")
     @PutMapping("/{category}")
     public ApiResponse<String> create(@PathVariable String category, @RequestAttribute Long userId) {
@@ -54,21 +65,67 @@ private final TodoListService todoListService;
 
     @Operation(summary = "获取所有的任务列表，返回一个表示操作成功的API响应，ApiResponse.success(lists)",
             description = "注意, 这个api返回的值是一个json格式的数据, 每个对象包含一个 category(类别) " +
-                    "tasks(保存的是task的id),如果你你想获取对应的id, 那么你需要调用task的api -> /task/get 逐个获取task")
+                    "tasks(保存的是task的id),如果你你想获取对应的id, 那么你需要调用task的api -> /task/get 逐个获取task. " +
+                    "传入 expand=tasks 时 tasks 直接返回完整的任务信息, 见 fetchWithTasks")
+    @SqlBudget(statements = 1)
     @GetMapping({"/", ""})
     public ApiResponse<List<GetListResponse>> fetch(@RequestAttribute Long userId) {
         // TODO 获取所有的任务列表 --- ok
-
         List<GetListResponse> lists = todoListService.getAllLists(userId);
 
         return ApiResponse.success(lists);
     }
 
-    @Operation(summary = "根据id获取任务列表，返回一个封装了任务列表查询结果的响应对象,ApiResponse.success(getListResponse)")
+    @Operation(summary = "获取所有的任务列表及其任务 (expand=tasks)",
+            description = "tasks 直接返回完整的任务信息, 每个列表最多 taskLimit 个 (默认 100, 最大 500, 按 id 升序). " +
+                    "列表还有更多任务时 nextCursor 不为 null, 作为 cursor 传给 /list/{id}/tasks 继续获取")
+    @Parameter(name = EXPAND, in = ParameterIn.QUERY, required = true, schema = @Schema(allowableValues = EXPAND_TASKS))
+    @SqlBudget(statements = 1)
+    @GetMapping(value = {"/", ""}, params = EXPAND + "=" + EXPAND_TASKS)
+    public ApiResponse<List<GetListDetailResponse>> fetchWithTasks(@RequestAttribute Long userId,
+                                                                   @RequestParam(defaultValue = DEFAULT_TASK_LIMIT) int taskLimit) {
+        // TODO 获取所有的任务列表及其任务 --- ok
+        List<GetListDetailResponse> lists = todoListService.getAllListsWithTasks(userId, taskLimit);
+
+        return ApiResponse.success(lists);
+    }
+
+    @Operation(summary = "根据id获取任务列表，返回一个封装了任务列表查询结果的响应对象,ApiResponse.success(getListResponse)",
+            description = "传入 expand=tasks 时 tasks 直接返回完整的任务信息, 而不是任务id, 见 getWithTasks")
+    @SqlBudget(statements = 1)
     @GetMapping("/{id}")
-    public ApiResponse<GetListResponse> get(@PathVariable Long id) {
+    public ApiResponse<GetListResponse> get(@PathVariable Long id, @RequestAttribute Long userId) {
         // TODO 根据 id 获取对应的任务列表 --- ok_
-        GetListResponse listById = todoListService.getListById(id);
+        GetListResponse listById = todoListService.getListById(id, userId);
+
         return ApiResponse.success(listById);
     }
+
+    @Operation(summary = "根据id获取任务列表及其任务 (expand=tasks)",
+            description = "tasks 最多 taskLimit 个 (默认 100, 最大 500, 按 id 升序). " +
+                    "还有更多任务时 nextCursor 不为 null, 作为 cursor 传给 /list/{id}/tasks 继续获取")
+    @Parameter(name = EXPAND, in = ParameterIn.QUERY, required = true, schema = @Schema(allowableValues = EXPAND_TASKS))
+    @SqlBudget(statements = 1)
+    @GetMapping(value = "/{id}", params = EXPAND + "=" + EXPAND_TASKS)
+    public ApiResponse<GetListDetailResponse> getWithTasks(@PathVariable Long id, @RequestAttribute Long userId,
+                                                           @RequestParam(defaultValue = DEFAULT_TASK_LIMIT) int taskLimit) {
+        // TODO 根据 id 获取任务列表及其任务 --- ok
+        GetListDetailResponse list = todoListService.getListWithTasksById(id, userId, taskLimit);
+
+        return ApiResponse.success(list);
+    }
+
+    @Operation(summary = "分页获取任务列表中的任务",
+            description = "按任务 id 升序返回, limit 为每页数量(最大 500). 第一页不传 cursor, " +
+                    "之后把上一页返回的 nextCursor 作为 cursor 传入, nextCursor 为 null 表示没有更多数据")
+    @SqlBudget(statements = 2)
+    @GetMapping("/{id}/tasks")
+    public ApiResponse<TaskPageResponse> tasks(@PathVariable Long id, @RequestAttribute Long userId,
+                                               @RequestParam(defaultValue = "50") int limit,
+                                               @RequestParam(required = false) String cursor) {
+        // TODO 分页获取任务列表中的任务 --- ok
+        TaskPageResponse page = todoListService.getTaskPage(id, userId, limit, cursor);
+
+        return ApiResponse.success(page);
+    }
 }
@@ -0,0 +1,55 @@
+package org.example.todo_list.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.example.todo_list.dto.response.ImportResponse;
+import org.example.todo_list.monitoring.SqlBudget;
+import org.example.todo_list.service.TransferService;
+import org.example.todo_list.utils.ApiResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+@Tag(name = "数据导入导出Api", description = "以 NDJSON 格式导出或导入用户的全部任务列表和任务")
+@RestController
+@RequiredArgsConstructor// 通过 Lombok 自动生成包含所有 final 字段的构造函数，简化代码书写。
+public class TransferController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final TransferService transferService;
+
+    @Operation(summary = "导出用户的全部数据",
+            description = "每行一个 JSON 对象: {\"type\":\"list\",\"category\":...} 或 " +
+                    "{\"type\":\"task\",\"category\":...,\"name\":...,\"description\":...,\"deadline\":...,\"status\":...}. " +
+                    "边查询边写出, 适合任务数量很大的用户")
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportData(@RequestAttribute("userId") Long userId) {
+        // TODO 导出用户数据 --- ok
+        StreamingResponseBody body = out -> transferService.exportTo(userId, out);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("todo_list.ndjson").build().toString())
+                .body(body);
+    }
+
+    @Operation(summary = "导入数据",
+            description = "请求体是 /export 导出的 NDJSON. 类别不存在时自动新建列表, 任务按 1000 个一批提交. " +
+                    "缺少必要字段的行会被跳过; 遇到无法解析的行时停止导入, 之前已提交的批次会保留")
+    // 每 1000 条一次 batch insert
+    @SqlBudget(statements = SqlBudget.UNLIMITED, repeated = SqlBudget.UNLIMITED)
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public ApiResponse<ImportResponse> importData(HttpServletRequest request,
+                                                  @RequestAttribute("userId") Long userId) throws IOException {
+        // TODO 导入用户数据 --- ok
+        ImportResponse response = transferService.importFrom(userId, request.getInputStream());
+
+        return ApiResponse.success(response);
+    }
+}
@@ -2,18 +2,23 @@ package org.example.todo_list.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.cache.UserSummaryCache;
+import org.example.todo_list.dto.request.InitiateUploadRequest;
 import org.example.todo_list.dto.request.LoginRegisterRequest;
 import org.example.todo_list.dto.request.UpdateUserRequest;
+import org.example.todo_list.dto.response.UploadSessionResponse;
 import org.example.todo_list.dto.response.UserResponse;
 import org.example.todo_list.exception.UserException;
 import org.example.todo_list.exception.errors.UserError;
 import org.example.todo_list.model.User;
-import org.example.todo_list.repository.jpa.UserRepository;
+import org.example.todo_list.monitoring.SqlBudget;
 import org.example.todo_list.security.JwtUtils;
+import org.example.todo_list.service.AvatarUploadService;
 import org.example.todo_list.service.UserService;
 import org.example.todo_list.utils.ApiResponse;
 import org.example.todo_list.utils.CookieUtil;
@@ -31,7 +36,7 @@ import java.io.IOException;
 public class UserController {
     private final JwtUtils jwtUtils;
     private final UserService userService;
-    private final UserRepository userRepository;
+    private final AvatarUploadService avatarUploadService;
 
     @Operation(summary = "注册",
             description = "传入用户名,密码和头像地址")
@@ -48,10 +53,9 @@ public class UserController {
                                            HttpServletResponse response) {
         // TODO 登录, 登录成功后为 HttpServletResponse 添加 setCookie 响应头, 值为 token ----ok
 
-        // 调用登录接口
-        userService.login(request);
+        // 调用登录接口, 直接拿到登录成功的用户
+        User user = userService.login(request);
 
-        User user = userRepository.findByUsername(request.username());
         // 生成用户 token
         String token = jwtUtils.generateToken(user.getId());
         CookieUtil.setCookie(response, token);
@@ -63,27 +67,22 @@ public class UserController {
 //        jwtCookie.setMaxAge((int) Duration.ofHours(24).toSeconds());    // 设置生存周期 24 hours
 //        response.addCookie(jwtCookie);
 
-        UserResponse userResponse = UserResponse.builder()
-                .id(user.getId())
-                .username(user.getUsername())
-                .avatarUrl(user.getAvatarUrl())
-                .build();
+        UserResponse userResponse = UserSummaryCache.toSummary(user);
         return ApiResponse.success(userResponse);
     }
 
+    @Operation(summary = "获取当前登录用户的信息", description = "返回 id, 用户名和头像地址")
+    @SqlBudget(statements = 1)
+    @GetMapping({"/", ""})
+    public ApiResponse<UserResponse> get(@RequestAttribute("userId") Long id) {
+        return ApiResponse.success(userService.getUserSummary(id));
+    }
+
     @Operation(summary = "更改用户信息", description = "增量更新, 可以传入一个或者多个值, 传入的数据对应的字段如果不为空, 就更新他")
     @PatchMapping({"/", ""})
     public ApiResponse<UserResponse> update(@RequestBody @Valid UpdateUserRequest request,
                                             @RequestAttribute("userId") Long id) {
-        if (userRepository.existsById(id)) {
-            userService.updateUser(id, new UpdateUserRequest(request.username(), request.password()));
-        } else {
-            throw new UserException(UserError.USER_NOT_FOUND);
-        }
-        UserResponse userResponse = UserResponse.builder()
-                .id(id)
-                .username(request.username())
-                .build();
+        UserResponse userResponse = userService.updateUser(id, request);
         return ApiResponse.success(userResponse);
     }
 // TODO 更改用户信息----ok
@@ -121,6 +120,43 @@ public class UserController {
     }
 
 
+    @Operation(summary = "开始分片上传头像",
+            description = "传入文件总大小和整个文件的 SHA-256, 返回 uploadId. 之后用 PUT 按顺序上传分片, 最后调用 complete. " +
+                    "同一用户再次开始上传时, 之前未完成的上传会被丢弃")
+    @PostMapping("/upload/sessions")
+    public ApiResponse<UploadSessionResponse> initiateUpload(@RequestBody @Valid InitiateUploadRequest request,
+                                                             @RequestAttribute("userId") Long id) throws IOException {
+        // TODO 开始分片上传 --- ok
+        return ApiResponse.success(avatarUploadService.initiate(id, request));
+    }
+
+    @Operation(summary = "查询分片上传的进度",
+            description = "返回已经写入的字节数 offset, 连接中断后从 offset 继续上传")
+    @GetMapping("/upload/sessions/{uploadId}")
+    public ApiResponse<UploadSessionResponse> uploadStatus(@PathVariable String uploadId,
+                                                           @RequestAttribute("userId") Long id) {
+        return ApiResponse.success(avatarUploadService.status(id, uploadId));
+    }
+
+    @Operation(summary = "上传一个分片",
+            description = "请求体是原始字节 (application/octet-stream), offset 必须等于已经写入的字节数. 返回写入后的 offset")
+    @PutMapping(value = "/upload/sessions/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ApiResponse<UploadSessionResponse> uploadChunk(@PathVariable String uploadId,
+                                                          @RequestParam long offset,
+                                                          HttpServletRequest request,
+                                                          @RequestAttribute("userId") Long id) throws IOException {
+        // TODO 上传分片, 直接读取请求体, 不经过 multipart 解析 --- ok
+        return ApiResponse.success(avatarUploadService.writeChunk(id, uploadId, offset, request.getInputStream()));
+    }
+
+    @Operation(summary = "完成分片上传",
+            description = "校验文件大小, SHA-256 和图片格式, 通过后设置为用户头像, 返回头像地址")
+    @PostMapping("/upload/sessions/{uploadId}/complete")
+    public ApiResponse<String> completeUpload(@PathVariable String uploadId,
+                                              @RequestAttribute("userId") Long id) throws IOException {
+        return ApiResponse.success(avatarUploadService.complete(id, uploadId));
+    }
+
     @Operation(summary = "登出", description = "想要删除 cookie 就把这个 token 的生命周期设置为 0 就可以了.")
     @GetMapping("/logout")
     public ApiResponse<String> logout(HttpServletResponse response) {
@@ -0,0 +1,20 @@
+package org.example.todo_list.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.util.List;
+
+
+@Builder
+@Schema(name = "批量获取任务请求")
+public record BatchGetTaskRequest(
+        @Schema(name = "ids", example = "[1, 2, 3]")
+        @NotEmpty(message = "任务id列表不能为空")
+        @Size(max = 1000, message = "一次最多获取 1000 个任务")
+        List<@NotNull Long> ids
+) {
+}
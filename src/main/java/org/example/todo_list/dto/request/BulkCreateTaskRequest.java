@@ -0,0 +1,19 @@
+package org.example.todo_list.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.util.List;
+
+
+// 每一项单独校验, 某一项不合法不会导致整个请求失败, 所以这里不对元素加 @Valid
+@Builder
+@Schema(name = "批量新建任务请求")
+public record BulkCreateTaskRequest(
+        @NotEmpty(message = "任务列表不能为空")
+        @Size(max = 5000, message = "一次最多新建 5000 个任务")
+        List<CreateTaskRequest> tasks
+) {
+}
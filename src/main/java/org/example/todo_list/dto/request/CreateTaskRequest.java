@@ -4,7 +4,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.AssertFalse;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
+import org.example.todo_list.model.TodoList;
 
 
 @Builder
@@ -13,7 +15,8 @@ public record CreateTaskRequest(
 
 
         @Schema(name = "category", example = "work")
-        @NotBlank(message = "任务类别不能为空") String category,
+        @NotBlank(message = "任务类别不能为空")
+        @Size(max = TodoList.MAX_CATEGORY_LENGTH, message = "任务类别不能超过 255 个字符") String category,
 
         @Schema(name = "name", example = "task")
         @NotBlank(message = "任务名不能为空") String name,
@@ -0,0 +1,23 @@
+package org.example.todo_list.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.Builder;
+
+
+@Builder
+@Schema(name = "开始分片上传头像的请求")
+public record InitiateUploadRequest(
+        @Schema(name = "size", description = "文件的总字节数", example = "524288")
+        @NotNull(message = "文件大小不能为空")
+        @Positive(message = "文件大小必须大于 0")
+        Long size,
+
+        @Schema(name = "sha256", description = "整个文件的 SHA-256, 十六进制小写", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+        @NotNull(message = "校验和不能为空")
+        @Pattern(regexp = "[0-9a-f]{64}", message = "校验和必须是 64 位十六进制小写字符串")
+        String sha256
+) {
+}
@@ -0,0 +1,52 @@
+package org.example.todo_list.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.util.List;
+
+
+// 查询参数, 全部可选; 没有传入的条件不参与过滤
+@Builder
+@Schema(name = "按条件查询任务请求")
+public record TaskQueryRequest(
+        @Schema(name = "status", example = "false")
+        Boolean status,
+
+        // 截止时间不早于 (包含), 秒级时间戳
+        @Schema(name = "deadlineAfter", example = "1830268799")
+        Long deadlineAfter,
+
+        // 截止时间早于 (不包含), 秒级时间戳
+        @Schema(name = "deadlineBefore", example = "1830873599")
+        Long deadlineBefore,
+
+        @Schema(name = "category", example = "[\"work\", \"home\"]")
+        @Size(max = 100, message = "一次最多按 100 个类别查询")
+        List<String> category,
+
+        @Schema(name = "namePrefix", example = "task")
+        @Size(max = 255, message = "任务名前缀过长")
+        String namePrefix,
+
+        @Schema(name = "sort", example = "deadline", defaultValue = "deadline")
+        @Pattern(regexp = "deadline|name", message = "sort 只能是 deadline 或 name")
+        String sort,
+
+        @Schema(name = "order", example = "asc", defaultValue = "asc")
+        @Pattern(regexp = "asc|desc", message = "order 只能是 asc 或 desc")
+        String order,
+
+        @Schema(name = "limit", example = "50", defaultValue = "50")
+        @Min(value = 1, message = "limit 不能小于 1")
+        @Max(value = 500, message = "limit 不能大于 500")
+        Integer limit,
+
+        @Schema(name = "cursor")
+        String cursor
+) {
+}
@@ -1,13 +1,16 @@
 package org.example.todo_list.dto.request;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
+import org.example.todo_list.model.TodoList;
 
 
 @Schema
 @Builder
 public record UpdateTaskRequest(
         @Schema(name = "category", example = "work")
+        @Size(max = TodoList.MAX_CATEGORY_LENGTH, message = "任务类别不能超过 255 个字符")
         String category,
 
         @Schema(name = "name", example = "task1")
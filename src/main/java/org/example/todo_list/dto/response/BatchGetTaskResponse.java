@@ -0,0 +1,17 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+
+@Schema(name = "批量获取任务的响应")
+@Builder
+public record BatchGetTaskResponse(
+        // 按请求中 id 的顺序排列
+        List<GetTaskResponse> tasks,
+        // 不存在(或不属于当前用户)的任务 id
+        List<Long> missing
+) {
+}
@@ -0,0 +1,17 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+
+@Schema(name = "批量新建任务的响应")
+@Builder
+public record BulkCreateTaskResponse(
+        int created,
+        int failed,
+        // 与请求中的任务一一对应
+        List<BulkTaskResult> results
+) {
+}
@@ -0,0 +1,18 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+
+@Schema(name = "批量新建任务中单个任务的结果")
+@Builder
+public record BulkTaskResult(
+        // 在请求中的下标
+        int index,
+        // 新建成功时为任务 id, 失败时为 null
+        Long id,
+        // 失败时的错误码和原因, 成功时为 null
+        Integer code,
+        String message
+) {
+}
@@ -0,0 +1,20 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+
+import java.util.List;
+
+
+@Schema(name = "获取list及其完整任务的响应")
+@Builder
+public record GetListDetailResponse(
+        @NotNull Long id,
+        @NotNull String category,
+        // 每个列表最多返回 taskLimit 个任务 (按 id 升序)
+        List<GetTaskResponse> tasks,
+        // 还有更多任务时, 作为 GET /list/{id}/tasks 的 cursor 继续获取; 为 null 表示 tasks 已经是全部任务
+        String nextCursor
+) {
+}
@@ -0,0 +1,17 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+
+@Schema(name = "导入数据的响应")
+@Builder
+public record ImportResponse(
+        // 新建的任务列表数量
+        long lists,
+        // 导入的任务数量
+        long tasks,
+        // 缺少必要字段而被跳过的行数
+        long skipped
+) {
+}
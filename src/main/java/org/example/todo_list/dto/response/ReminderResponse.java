@@ -0,0 +1,15 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+
+@Schema(name = "任务到期提醒")
+@Builder
+public record ReminderResponse(
+        Long taskId,
+        String name,
+        // 截止时间 (秒级时间戳)
+        Long deadline
+) {
+}
@@ -0,0 +1,16 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+
+@Schema(name = "分页获取任务的响应")
+@Builder
+public record TaskPageResponse(
+        List<GetTaskResponse> tasks,
+        // 下一页的游标, 为 null 表示已经没有更多数据
+        String nextCursor
+) {
+}
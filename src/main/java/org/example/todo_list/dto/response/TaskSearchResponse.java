@@ -0,0 +1,17 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+
+@Schema(name = "搜索任务的响应")
+@Builder
+public record TaskSearchResponse(
+        // 按相关程度排序, 最多 limit 个
+        List<GetTaskResponse> tasks,
+        // 命中的任务总数
+        int total
+) {
+}
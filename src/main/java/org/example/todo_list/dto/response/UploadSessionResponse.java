@@ -0,0 +1,15 @@
+package org.example.todo_list.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+
+@Schema(name = "分片上传会话的状态")
+@Builder
+public record UploadSessionResponse(
+        String uploadId,
+        // 已经写入的字节数, 下一个分片从这里开始
+        long offset,
+        long size
+) {
+}
@@ -0,0 +1,35 @@
+package org.example.todo_list.dto.transfer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+
+// 导入导出 NDJSON 中的一行. type 为 list 时只有 category, 为 task 时是 category 下的一个任务
+@Schema(name = "导入导出记录")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransferRecord(
+        @Schema(name = "type", example = "task")
+        String type,
+
+        @Schema(name = "category", example = "work")
+        String category,
+
+        @Schema(name = "name", example = "task")
+        String name,
+
+        @Schema(name = "description", example = "this is a task")
+        String description,
+
+        @Schema(name = "deadline", example = "1830268799")
+        Long deadline,
+
+        @Schema(name = "status", example = "false")
+        Boolean status
+) {
+    public static final String TYPE_LIST = "list";
+    public static final String TYPE_TASK = "task";
+
+    public static TransferRecord list(String category) {
+        return new TransferRecord(TYPE_LIST, category, null, null, null, null);
+    }
+}
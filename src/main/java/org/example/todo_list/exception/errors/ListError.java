@@ -13,7 +13,11 @@ public enum ListError implements ErrorCode {
     TASKLIST_CATEGORY_CONFLICT(3001, "重复任务列表分类", HttpStatus.CONFLICT),
 //    任务列表不存在	    3002	操作不存在任务列表
     TASKLIST_NOT_FOUND(3002, "任务列表不存在", HttpStatus.NOT_FOUND),
-    TASKLIST_ALREADY_EXIST(1003, "任务列表已存在", HttpStatus.CONFLICT)
+    TASKLIST_ALREADY_EXIST(1003, "任务列表已存在", HttpStatus.CONFLICT),
+//    非法分页游标	    3003	分页查询时传入的 cursor 无法解析
+    INVALID_CURSOR(3003, "非法分页游标", HttpStatus.BAD_REQUEST),
+//    非法类别          3004    类别为空或超过 255 个字符
+    INVALID_CATEGORY(3004, "任务列表类别为空或过长", HttpStatus.BAD_REQUEST)
     ;
 
     private final Integer code;
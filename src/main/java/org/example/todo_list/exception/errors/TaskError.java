@@ -14,7 +14,11 @@ public enum TaskError implements ErrorCode {
 //    过去时间设置	    2002	设置过去时间为截止时间
     INVALID_DUE_DATE(2002, "过去时间设置", HttpStatus.BAD_REQUEST),
 //    非法状态参数	    2003	新建任务时status=true
-    INVALID_INITIAL_STATUS(2003, "非法状态参数", HttpStatus.BAD_REQUEST)
+    INVALID_INITIAL_STATUS(2003, "非法状态参数", HttpStatus.BAD_REQUEST),
+//    导入数据格式错误   2004	导入的 NDJSON 无法解析
+    INVALID_IMPORT_DATA(2004, "导入数据格式错误", HttpStatus.BAD_REQUEST),
+//    分页游标无效   2005	查询任务时传入的 cursor 无法解析, 或与排序方式不一致
+    INVALID_CURSOR(2005, "分页游标无效", HttpStatus.BAD_REQUEST)
     ;
 
     private final Integer code;
@@ -18,7 +18,14 @@ public enum UserError  implements ErrorCode{
     NO_COOKIE(1004, "未登录访问", HttpStatus.UNAUTHORIZED),
     USER_NOT_FOUND(1005, "用户不存在", HttpStatus.NOT_FOUND),
     INVALID_FILE(1006, "上传文件不存在", HttpStatus.NOT_FOUND),
-    INVALID_FILE_EXTENSION(1007, "扩展名错误", HttpStatus.NOT_FOUND);
+    INVALID_FILE_EXTENSION(1007, "扩展名错误", HttpStatus.NOT_FOUND),
+    PASSWORD_HASH_BUSY(1008, "登录请求过多, 请稍后重试", HttpStatus.TOO_MANY_REQUESTS),
+    UNSUPPORTED_IMAGE(1009, "不支持的图片格式", HttpStatus.UNSUPPORTED_MEDIA_TYPE),
+    UPLOAD_NOT_FOUND(1010, "上传会话不存在或已过期", HttpStatus.NOT_FOUND),
+    UPLOAD_OFFSET_MISMATCH(1011, "分片偏移量与已上传的长度不一致", HttpStatus.CONFLICT),
+    UPLOAD_TOO_LARGE(1012, "上传文件超过大小限制", HttpStatus.PAYLOAD_TOO_LARGE),
+    UPLOAD_CHECKSUM_MISMATCH(1013, "上传文件校验和不一致", HttpStatus.UNPROCESSABLE_ENTITY),
+    UPLOAD_INCOMPLETE(1014, "文件尚未上传完成", HttpStatus.CONFLICT);
 
 //    异常描述	      错误码	    触发场景
 //    非法用户名	      1001	    用户名不符合格式规范
@@ -27,6 +34,13 @@ public enum UserError  implements ErrorCode{
 //    未登录访问	      1004	    无有效Cookie访问受保护接口
 //    用户不存在	      1005	    更新不存在的用户信息
 //    上传文件不存在     1006      文件为空
+//    登录请求过多       1008      密码哈希线程池队列已满
+//    不支持的图片格式    1009      上传的头像内容不是 png/jpeg/gif/bmp
+//    上传会话不存在     1010      分片上传的 uploadId 不存在, 已过期或属于其他用户
+//    偏移量不一致       1011      分片的 offset 不等于已上传的长度, 或同一会话有并发写入
+//    文件过大          1012      声明的大小或实际写入的数据超过限制
+//    校验和不一致       1013      完成上传时 SHA-256 与声明的不一致
+//    尚未上传完成       1014      完成上传时已上传的长度小于声明的大小
     private final Integer code;
     private final String message;
     private final HttpStatus httpStatus;
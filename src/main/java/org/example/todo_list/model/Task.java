@@ -9,6 +9,15 @@ import java.util.Objects;
 
 @Builder
 @Entity
+@Table(indexes = {
+        // 按列表做 keyset 分页: where todo_list_id = ? and id > ? order by id
+        // 以 todo_list_id 开头, 同时用于按列表查询/删除任务和外键, 不需要再单独建 todo_list_id 的索引
+        @Index(name = "idx_task_todo_list_id_id", columnList = "todo_list_id, id"),
+        // 截止日期提醒按时间窗口加载: where deadline > ? and deadline <= ?
+        @Index(name = "idx_task_deadline", columnList = "deadline"),
+        // 按条件查询 (TaskQueryRepository): 每个列表内 status 等值 + deadline 范围, 逾期/本周到期的视图只扫描命中的行
+        @Index(name = "idx_task_todo_list_id_status_deadline", columnList = "todo_list_id, status, deadline")
+})
 @Getter
 @Setter
 @ToString
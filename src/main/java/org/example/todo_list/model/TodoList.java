@@ -14,14 +14,23 @@ import java.util.Objects;
 @Setter
 @ToString
 @Entity
+@Table(uniqueConstraints = {
+        // 每个用户的类别唯一, 新建列表依赖它判断类别已存在 (TodoListInsertRepository).
+        // 已有的库由 TodoListUniqueCategoryMigration 合并重复数据后添加, 并在启动时检查
+        @UniqueConstraint(name = "uk_todo_list_user_id_category", columnNames = {"user_id", "category"})
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class TodoList {
+    // 类别的最大长度, 与列定义一致. 新建和修改类别前检查, 不依赖数据库截断
+    public static final int MAX_CATEGORY_LENGTH = 255;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(length = MAX_CATEGORY_LENGTH)
     private String category;
 
     @ManyToOne(fetch = FetchType.LAZY)
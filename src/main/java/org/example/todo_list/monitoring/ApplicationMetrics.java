@@ -0,0 +1,109 @@
+package org.example.todo_list.monitoring;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.example.todo_list.cache.UserSummaryCache;
+import org.example.todo_list.reminder.ReminderScheduler;
+import org.example.todo_list.search.TaskSearchIndex;
+import org.example.todo_list.security.JwtUtils;
+import org.example.todo_list.security.PasswordHasher;
+import org.example.todo_list.service.AvatarService;
+import org.example.todo_list.service.AvatarThumbnailService;
+import org.example.todo_list.service.AvatarUploadService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/*
+ * 把各组件自己维护的统计 (线程池队列, 本地缓存命中率, 任务提醒, 载体线程固定) 注册为指标, 抓取时才读取, 请求路径上没有额外开销.
+ * 缓存指标沿用 Micrometer 的命名 (cache.gets, cache.evictions), 用 cache 标签区分.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApplicationMetrics implements MeterBinder {
+    private final PasswordHasher passwordHasher;
+    private final JwtUtils jwtUtils;
+    private final UserSummaryCache userSummaryCache;
+    private final AvatarService avatarService;
+    private final AvatarThumbnailService avatarThumbnailService;
+    private final AvatarUploadService avatarUploadService;
+    private final ReminderScheduler reminderScheduler;
+    private final TaskSearchIndex taskSearchIndex;
+    // 只在虚拟线程模式下存在
+    private final ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("password.hash.queue", passwordHasher, PasswordHasher::getQueueDepth)
+                .description("等待计算的密码哈希数")
+                .register(registry);
+        Gauge.builder("password.hash.active", passwordHasher, PasswordHasher::getActiveCount)
+                .register(registry);
+        // 排队和计算耗时是 PasswordHasher 自己记录的 Timer (password.hash.wait, password.hash.duration)
+        FunctionCounter.builder("password.hash.rejected", passwordHasher, PasswordHasher::getRejectedCount)
+                .description("队列满或等待超时被拒绝 (429) 的登录/注册请求")
+                .register(registry);
+
+        bindCache(registry, "jwt.verified-tokens", jwtUtils, JwtUtils::getCacheStats);
+        bindCache(registry, "user.summary", userSummaryCache, UserSummaryCache::stats);
+        bindCache(registry, "avatar.bytes", avatarService, AvatarService::getCacheStats);
+
+        Gauge.builder("avatar.thumbnail.queue", avatarThumbnailService, AvatarThumbnailService::getQueueDepth)
+                .register(registry);
+        Gauge.builder("avatar.thumbnail.active", avatarThumbnailService, AvatarThumbnailService::getActiveCount)
+                .register(registry);
+        Gauge.builder("avatar.upload.sessions", avatarUploadService, AvatarUploadService::getActiveSessionCount)
+                .description("未完成的分片上传会话数")
+                .register(registry);
+
+        Gauge.builder("reminder.scheduled", reminderScheduler, ReminderScheduler::getScheduled)
+                .description("时间轮中等待提醒的条目数, 包括改期或删除后尚未丢弃的旧条目")
+                .register(registry);
+        Gauge.builder("reminder.changes.pending", reminderScheduler, ReminderScheduler::getPendingChanges)
+                .register(registry);
+        FunctionCounter.builder("reminder.delivered", reminderScheduler, ReminderScheduler::getDelivered)
+                .register(registry);
+        FunctionCounter.builder("reminder.discarded", reminderScheduler, ReminderScheduler::getDiscarded)
+                .description("到期时回查发现已删除, 已完成或已改期的条目")
+                .register(registry);
+
+        Gauge.builder("search.index.users", taskSearchIndex, TaskSearchIndex::getIndexedUsers)
+                .description("内存中有搜索索引的用户数")
+                .register(registry);
+        FunctionCounter.builder("search.index.builds", taskSearchIndex, TaskSearchIndex::getBuilds)
+                .description("第一次搜索, 被淘汰或删除过多后重建索引的次数")
+                .register(registry);
+
+        pinningMonitor.ifAvailable(monitor -> {
+            FunctionCounter.builder("jvm.threads.virtual.pinned", monitor, VirtualThreadPinningMonitor::getPinnedCount)
+                    .description("超过阈值的载体线程固定次数")
+                    .register(registry);
+            FunctionCounter.builder("jvm.threads.virtual.pinned.time", monitor, VirtualThreadPinningMonitor::getTotalPinnedMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("jvm.threads.virtual.pinned.max", monitor, VirtualThreadPinningMonitor::getMaxPinnedMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        });
+    }
+
+    // 指标只弱引用 owner, 这里传入组件本身 (单例) 而不是临时的 lambda
+    private static <T> void bindCache(MeterRegistry registry, String name, T owner, Function<T, CacheStats> stats) {
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).hitCount())
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).missCount())
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", owner, o -> stats.apply(o).evictionCount())
+                .tag("cache", name)
+                .register(registry);
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.todo_list.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 按接口记录每个请求执行的 SQL 条数和总耗时, 与 http.server.requests 使用相同的 method/uri 标签,
+ * 可以直接对比某个接口的总延迟中有多少花在数据库上.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestSqlMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // 抓取指标本身的请求不计入. 默认配置下监控端点在单独的管理端口上, 不经过这个过滤器; 管理端口与应用端口相同时才会走到这里
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlRequestContext context = SqlRequestContext.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlRequestContext.end();
+            record(request, context);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlRequestContext context) {
+        // 路由匹配后才有 uri 模板, 没有匹配到接口 (404, 被拦截器拒绝前) 的请求归到 UNKNOWN
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("每个请求执行的 SQL 条数")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(context.getStatements());
+        Timer.builder("http.server.requests.sql.time")
+                .description("每个请求执行 SQL 的总耗时")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(context.getNanos(), TimeUnit.NANOSECONDS);
+    }
+}
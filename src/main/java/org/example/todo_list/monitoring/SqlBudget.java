@@ -0,0 +1,26 @@
+package org.example.todo_list.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * 接口每个请求的 SQL 预算, 由 SqlBudgetAdvice 在写出响应前检查. 没有标注的接口使用 monitoring.sql 中的默认值.
+ * 修改接口后语句数变多时, 先确认不是 N+1 或多余的查询, 再调整这里的数字.
+ * 新增标注的接口需要在 SqlBudgetIntegrationTest 中加一个用例, 构建时用多行数据检查预算.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+    int UNLIMITED = -1;
+    int DEFAULT = 0;
+
+    // 每个请求最多执行的语句数 (JDBC batch 算一条)
+    int statements() default DEFAULT;
+
+    // 同一条语句 (只有参数不同) 最多执行的次数, 超过视为 N+1
+    int repeated() default DEFAULT;
+}
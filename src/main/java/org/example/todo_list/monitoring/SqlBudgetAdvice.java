@@ -0,0 +1,118 @@
+package org.example.todo_list.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 在接口写出响应前检查这个请求执行的 SQL: 总条数超过预算, 或同一条语句只换参数重复执行 (N+1).
+ * 在写出响应前检查, 开启 monitoring.sql.enforce 时违反预算的请求直接变成 500, 集成测试和压测中会失败;
+ * 关闭时每个接口的每种问题只打印一次警告, 之后只计数 (sql.budget.violations).
+ * 流式响应 (导出, 头像文件) 不经过这里, 不做检查.
+ */
+@Slf4j
+@RestControllerAdvice
+public class SqlBudgetAdvice implements ResponseBodyAdvice<Object> {
+    private static final int MAX_REPORTED = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final int defaultStatements;
+    private final int defaultRepeated;
+    private final boolean enforce;
+
+    // 已经打印过的 接口 + 问题, 避免每个请求都打印
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    public SqlBudgetAdvice(MeterRegistry meterRegistry,
+                           @Value("${monitoring.sql.default-budget}") int defaultStatements,
+                           @Value("${monitoring.sql.repeated-threshold}") int defaultRepeated,
+                           @Value("${monitoring.sql.enforce}") boolean enforce) {
+        this.meterRegistry = meterRegistry;
+        this.defaultStatements = defaultStatements;
+        this.defaultRepeated = defaultRepeated;
+        this.enforce = enforce;
+    }
+
+    // 只检查接口方法, 不检查 GlobalExceptionHandler 返回的错误响应
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.getContainingClass().isAnnotationPresent(RestController.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlRequestContext context = SqlRequestContext.current();
+        if (context == null || context.getStatements() == 0 || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+
+        SqlBudget budget = returnType.getMethodAnnotation(SqlBudget.class);
+        int maxStatements = budget == null || budget.statements() == SqlBudget.DEFAULT ? defaultStatements : budget.statements();
+        int maxRepeated = budget == null || budget.repeated() == SqlBudget.DEFAULT ? defaultRepeated : budget.repeated();
+
+        List<String> violations = new ArrayList<>();
+        String endpoint = endpoint(servletRequest.getServletRequest());
+        if (maxStatements != SqlBudget.UNLIMITED && context.getStatements() > maxStatements) {
+            String problem = "执行了 " + context.getStatements() + " 条 SQL, 预算 " + maxStatements;
+            violations.add(problem);
+            report(endpoint, "statements", endpoint, problem);
+        }
+        if (maxRepeated != SqlBudget.UNLIMITED) {
+            for (Map.Entry<String, Integer> entry : context.getRepeatedStatements(maxRepeated).entrySet()) {
+                String problem = "疑似 N+1, 同一条语句执行了 " + entry.getValue() + " 次 (上限 " + maxRepeated + "): " + entry.getKey();
+                violations.add(problem);
+                report(endpoint, "repeated", endpoint + " " + entry.getKey(), problem);
+            }
+        }
+
+        if (enforce && !violations.isEmpty()) {
+            throw new SqlBudgetExceededException(endpoint + " 超出 SQL 预算:\n" + String.join("\n", violations));
+        }
+        return body;
+    }
+/* TODO 检查请求的 SQL 预算 --- ok
+开始 (接口返回后, 写出响应前)
+├─→ 没有执行 SQL 或不是接口方法 → 直接写出
+├─→ 读取接口上的 @SqlBudget, 没有标注的项使用默认值
+├─→ 总条数超过预算 → 记录问题
+├─→ 每条执行次数超过上限的语句 → 记录为疑似 N+1
+├─→ 每个问题计数, 每个 接口 + 问题 第一次出现时打印警告
+└─→ enforce 且有问题 → 抛出 SqlBudgetExceededException (500), 否则正常写出
+*/
+
+    private void report(String endpoint, String kind, String key, String problem) {
+        Counter.builder("sql.budget.violations")
+                .tag("endpoint", endpoint)
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .increment();
+        if (reported.size() < MAX_REPORTED && reported.add(key)) {
+            log.warn("{} {}", endpoint, problem);
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern == null ? request.getRequestURI() : pattern);
+    }
+}
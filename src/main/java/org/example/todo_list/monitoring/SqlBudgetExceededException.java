@@ -0,0 +1,8 @@
+package org.example.todo_list.monitoring;
+
+// monitoring.sql.enforce=true 时, 超出 SQL 预算或出现 N+1 的请求抛出这个异常, 由 GlobalExceptionHandler 返回 500
+public class SqlBudgetExceededException extends IllegalStateException {
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.todo_list.monitoring;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * 当前请求执行的 SQL 统计. RequestSqlMetricsFilter 在请求开始时绑定到当前线程, SqlStatementListener 每执行一条语句累加一次.
+ * 只在处理请求的线程上有效: 异步写出的响应 (导出) 和后台线程池中执行的 SQL 不计入任何请求.
+ * 同时按语句文本计数, 预编译语句的参数不在文本中, 所以只有参数不同的同一条语句会计为重复执行 (N+1).
+ */
+public final class SqlRequestContext {
+    private static final ThreadLocal<SqlRequestContext> CURRENT = new ThreadLocal<>();
+    // 一个请求中最多跟踪多少种不同的语句, 超过后只计入总数
+    private static final int MAX_DISTINCT = 256;
+
+    private int statements;
+    private long nanos;
+    private final Map<String, int[]> executions = new HashMap<>();
+
+    private SqlRequestContext() {
+    }
+
+    public static SqlRequestContext begin() {
+        SqlRequestContext context = new SqlRequestContext();
+        CURRENT.set(context);
+        return context;
+    }
+
+    // 当前线程没有在处理请求时返回 null
+    public static SqlRequestContext current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void record(String sql, long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        int[] count = executions.get(sql);
+        if (count == null) {
+            if (executions.size() >= MAX_DISTINCT) {
+                return;
+            }
+            count = new int[1];
+            executions.put(sql, count);
+        }
+        count[0]++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    // 执行次数超过 threshold 的语句 -> 次数
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> res = new LinkedHashMap<>();
+        executions.forEach((sql, count) -> {
+            if (count[0] > threshold) {
+                res.put(sql, count[0]);
+            }
+        });
+        return res;
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.todo_list.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.StatementType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/*
+ * datasource-proxy 的监听器: 每次执行语句 (JDBC batch 算一次) 时记录全局的 db.statements 计时器 (按 select/insert/... 分类),
+ * 并累加到当前请求的 SqlRequestContext. 不打印 SQL, 替代原来 org.hibernate.SQL 的 debug/trace 日志.
+ */
+public class SqlStatementListener implements QueryExecutionListener {
+    private static final String START_NANOS = "startNanos";
+    // 非预编译语句中的字符串和数字字面量, 替换成 ? 后与预编译语句一样按文本判断重复
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    // DataSource 在 MeterRegistry 之前创建, 第一次执行语句时才注册计时器
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private volatile Map<QueryType, Timer> timers;
+
+    public SqlStatementListener(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // ExecutionInfo 自带的耗时只精确到毫秒
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (start == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        Map<QueryType, Timer> byType = timers();
+        if (byType != null) {
+            byType.get(QueryUtils.getQueryType(sql)).record(elapsed, TimeUnit.NANOSECONDS);
+        }
+
+        SqlRequestContext context = SqlRequestContext.current();
+        if (context != null) {
+            if (execInfo.getStatementType() == StatementType.STATEMENT) {
+                sql = LITERALS.matcher(sql).replaceAll("?");
+            }
+            context.record(sql, elapsed);
+        }
+    }
+
+    private Map<QueryType, Timer> timers() {
+        Map<QueryType, Timer> byType = timers;
+        if (byType == null) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return null;
+            }
+            byType = new EnumMap<>(QueryType.class);
+            for (QueryType type : QueryType.values()) {
+                byType.put(type, Timer.builder("db.statements")
+                        .description("JDBC 语句执行耗时, batch 算一次")
+                        .tag("type", type.name().toLowerCase())
+                        .register(registry));
+            }
+            timers = byType;
+        }
+        return byType;
+    }
+}
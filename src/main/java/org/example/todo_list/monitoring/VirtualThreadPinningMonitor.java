@@ -0,0 +1,138 @@
+package org.example.todo_list.monitoring;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * 虚拟线程模式下用 JFR 事件流监听 jdk.VirtualThreadPinned: 虚拟线程在 synchronized 块或本地方法中阻塞时
+ * 会占住载体线程, 并发量退化为载体线程数. 按调用栈汇总次数和耗时, 每种调用栈第一次出现时打印一次.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+
+    private final Duration threshold;
+    private final int stackDepth;
+    private final int maxStacks;
+
+    private final LongAdder pinnedCount = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final AtomicLong maxPinnedNanos = new AtomicLong();
+    // 调用栈 -> 统计, 条目数有上限, 超过后只计入总数
+    private final Map<String, PinnedSite> sites = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    public record PinnedSite(String stack, LongAdder count, LongAdder nanos) {
+    }
+
+    public VirtualThreadPinningMonitor(@Value("${monitoring.virtual-threads.pinned-threshold-millis}") long thresholdMillis,
+                                       @Value("${monitoring.virtual-threads.stack-depth}") int stackDepth,
+                                       @Value("${monitoring.virtual-threads.max-stacks}") int maxStacks) {
+        this.threshold = Duration.ofMillis(thresholdMillis);
+        this.stackDepth = stackDepth;
+        this.maxStacks = maxStacks;
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::record);
+        stream.startAsync();
+        log.info("虚拟线程模式已启用, 开始监听载体线程固定 (阈值 {} ms)", threshold.toMillis());
+    }
+
+    private void record(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        pinnedCount.increment();
+        pinnedNanos.add(nanos);
+        maxPinnedNanos.accumulateAndGet(nanos, Math::max);
+
+        String stack = format(event.getStackTrace());
+        PinnedSite site = sites.get(stack);
+        if (site == null && sites.size() < maxStacks) {
+            PinnedSite created = new PinnedSite(stack, new LongAdder(), new LongAdder());
+            site = sites.putIfAbsent(stack, created);
+            if (site == null) {
+                site = created;
+                log.warn("虚拟线程固定了载体线程 {} ms:\n{}", event.getDuration().toMillis(), stack);
+            }
+        }
+        if (site != null) {
+            site.count().increment();
+            site.nanos().add(nanos);
+        }
+    }
+
+    private String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<no stack trace>";
+        }
+        StringBuilder sb = new StringBuilder();
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (int i = 0; i < Math.min(stackDepth, frames.size()); i++) {
+            RecordedFrame frame = frames.get(i);
+            sb.append("\tat ")
+                    .append(frame.getMethod().getType().getName())
+                    .append('.')
+                    .append(frame.getMethod().getName())
+                    .append(':')
+                    .append(frame.getLineNumber())
+                    .append('\n');
+        }
+        return sb.toString();
+    }
+
+    public long getPinnedCount() {
+        return pinnedCount.sum();
+    }
+
+    public double getTotalPinnedMillis() {
+        return pinnedNanos.sum() / 1_000_000.0;
+    }
+
+    public double getMaxPinnedMillis() {
+        return maxPinnedNanos.get() / 1_000_000.0;
+    }
+
+    // 按总耗时从高到低排列的调用栈 -> 次数
+    public Map<String, Long> getTopSites(int limit) {
+        Map<String, Long> res = new LinkedHashMap<>();
+        sites.values().stream()
+                .sorted(Comparator.comparingLong((PinnedSite site) -> site.nanos().sum()).reversed())
+                .limit(limit)
+                .forEach(site -> res.put(site.stack(), site.count().sum()));
+        return res;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+        if (pinnedCount.sum() > 0) {
+            log.info("载体线程固定汇总 [次数:{}, 总耗时:{} ms, 最长:{} ms]",
+                    getPinnedCount(), getTotalPinnedMillis(), getMaxPinnedMillis());
+        }
+    }
+}
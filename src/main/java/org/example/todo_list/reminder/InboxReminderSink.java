@@ -0,0 +1,60 @@
+package org.example.todo_list.reminder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.todo_list.dto.response.ReminderResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/*
+ * 应用内收件箱: 每个用户最多保留 max-per-user 条最新的提醒, 用户通过 GET /reminder 取走.
+ * 只在内存中, 重启后未读的提醒丢失; 很久不来取的用户会被淘汰.
+ */
+@Component
+@ConditionalOnProperty(name = "reminder.sink.inbox", havingValue = "true", matchIfMissing = true)
+public class InboxReminderSink implements ReminderSink {
+    private final Cache<Long, Deque<ReminderResponse>> inboxes;
+    private final int maxPerUser;
+
+    public InboxReminderSink(@Value("${reminder.inbox.max-users}") long maxUsers,
+                             @Value("${reminder.inbox.max-per-user}") int maxPerUser) {
+        this.inboxes = Caffeine.newBuilder().maximumSize(maxUsers).build();
+        this.maxPerUser = maxPerUser;
+    }
+
+    @Override
+    public void deliver(List<Reminder> reminders) {
+        for (Reminder reminder : reminders) {
+            Deque<ReminderResponse> inbox = inboxes.get(reminder.userId(), id -> new ArrayDeque<>());
+            synchronized (inbox) {
+                if (inbox.size() == maxPerUser) {
+                    inbox.pollFirst();
+                }
+                inbox.addLast(ReminderResponse.builder()
+                        .taskId(reminder.taskId())
+                        .name(reminder.name())
+                        .deadline(reminder.deadline())
+                        .build());
+            }
+        }
+    }
+
+    // 取走用户的全部提醒, 按到期先后排列
+    public List<ReminderResponse> drain(Long userId) {
+        Deque<ReminderResponse> inbox = inboxes.getIfPresent(userId);
+        if (inbox == null) {
+            return List.of();
+        }
+        synchronized (inbox) {
+            List<ReminderResponse> res = new ArrayList<>(inbox);
+            inbox.clear();
+            return res;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.todo_list.reminder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// 把提醒写入日志
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "reminder.sink.log", havingValue = "true", matchIfMissing = true)
+public class LogReminderSink implements ReminderSink {
+    @Override
+    public void deliver(List<Reminder> reminders) {
+        for (Reminder reminder : reminders) {
+            log.info("任务即将到期 [用户:{}, 任务:{} {}, 截止:{}]",
+                    reminder.userId(), reminder.taskId(), reminder.name(), reminder.deadline());
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package org.example.todo_list.reminder;
+
+// 一条到期提醒, deadline 为截止时间 (秒级时间戳)
+public record Reminder(long taskId, long userId, String name, long deadline) {
+}
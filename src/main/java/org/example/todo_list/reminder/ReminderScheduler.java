@@ -0,0 +1,216 @@
+package org.example.todo_list.reminder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.repository.jdbc.TaskDeadlineRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 任务截止日期提醒. 在截止前 lead-seconds 秒提醒一次, 已完成的任务不提醒.
+ * 时间轮中只保存提醒时间在 [现在, 现在 + window-seconds] 内的任务, 更远的留在数据库中, 窗口向后滑动时按 deadline 范围查询加载,
+ * 内存占用只与窗口内的任务数有关. 新建/修改任务时把新的截止日期交给 deadlineChanged, 删除, 完成或改期后留在时间轮中的旧条目
+ * 不逐个移除, 到期时批量回查数据库, 截止日期不一致或任务已不存在的直接丢弃.
+ * 时间轮只在定时任务线程上访问. 每个实例各自提醒, 部署多个实例时只应在一个实例上开启.
+ */
+@Slf4j
+@Component
+public class ReminderScheduler {
+    // 每层 64 个槽, 4 层, tick 为 1 秒: 最远可以放入约 190 天后的条目
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final TaskDeadlineRepository taskDeadlineRepository;
+    private final List<ReminderSink> sinks;
+    private final boolean enabled;
+    private final long leadSeconds;
+    private final long windowSeconds;
+    private final long refillSeconds;
+    private final int batchSize;
+
+    // 请求线程提交的 (任务id, 截止日期), 每个 tick 取出放入时间轮
+    private final Queue<long[]> changes = new ConcurrentLinkedQueue<>();
+
+    // 以下字段只在定时任务线程上访问
+    private TimingWheel wheel;
+    // 提醒时间不晚于这个时间 (秒) 的任务都已经加载到时间轮
+    private long loadedUntil;
+    // 本批到期的 (任务id, 截止日期)
+    private final long[] dueIds;
+    private final long[] dueDeadlines;
+    private int dueCount;
+
+    private volatile long scheduled;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    public ReminderScheduler(TaskDeadlineRepository taskDeadlineRepository,
+                             ObjectProvider<ReminderSink> sinks,
+                             @Value("${reminder.enabled}") boolean enabled,
+                             @Value("${reminder.lead-seconds}") long leadSeconds,
+                             @Value("${reminder.window-seconds}") long windowSeconds,
+                             @Value("${reminder.refill-seconds}") long refillSeconds,
+                             @Value("${reminder.batch-size}") int batchSize) {
+        long horizon = new TimingWheel(WHEEL_BITS, WHEEL_LEVELS, 0).getHorizon();
+        if (windowSeconds + refillSeconds > horizon || refillSeconds > windowSeconds) {
+            throw new IllegalArgumentException("reminder.window-seconds 不能超过 " + horizon + ", 且不能小于 refill-seconds");
+        }
+        this.taskDeadlineRepository = taskDeadlineRepository;
+        this.sinks = sinks.orderedStream().toList();
+        this.enabled = enabled;
+        this.leadSeconds = leadSeconds;
+        this.windowSeconds = windowSeconds;
+        this.refillSeconds = refillSeconds;
+        this.batchSize = batchSize;
+        this.dueIds = new long[batchSize];
+        this.dueDeadlines = new long[batchSize];
+    }
+
+    // 任务新建或修改了截止日期, 由请求线程调用, 只入队不查询
+    public void deadlineChanged(Long taskId, Long deadline) {
+        if (enabled && taskId != null && deadline != null) {
+            changes.add(new long[]{taskId, deadline});
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reminder.tick-millis}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        long now = Instant.now().getEpochSecond();
+        if (wheel == null) {
+            wheel = new TimingWheel(WHEEL_BITS, WHEEL_LEVELS, now);
+            // 第一次从 deadline > now 开始加载: 启动时 lead-seconds 内就要截止的任务提醒时间已过, 放入时间轮后在下一个 tick 立即提醒
+            loadedUntil = now - leadSeconds;
+        }
+        try {
+            // 先加载再处理变化: 加载时还没提交的任务, 它的变化一定还在队列中
+            if (loadedUntil - now <= windowSeconds - refillSeconds) {
+                load(now + windowSeconds);
+            }
+            applyChanges();
+            wheel.advanceTo(now, this::expired);
+            flush();
+        } catch (RuntimeException e) {
+            // 加载失败时 loadedUntil 不变, 下一个 tick 重试, 期间到期的任务加载后立即提醒
+            log.error("加载任务提醒失败: {}", e.getMessage(), e);
+        } finally {
+            scheduled = wheel.size();
+        }
+    }
+/* TODO 任务提醒 --- ok
+开始 (每个 tick, 默认 1 秒)
+├─→ 第一次 → 已加载到 now - lead (从 deadline > now 开始加载, 启动时即将截止的任务也会提醒)
+├─→ 窗口剩余不足 window - refill → 按 deadline 范围查询 (loadedUntil, now + window] 的未完成任务 → 加入时间轮
+├─→ 取出请求线程提交的截止日期变化, 提醒时间在已加载范围内的加入时间轮, 之外的等之后加载
+├─→ 时间轮推进到当前秒, 到期条目攒成批 (batch-size)
+└─→ 每批一次 IN 查询回查
+    ├─→ 任务已删除, 已完成或截止日期已改 → 丢弃
+    └─→ 同一任务只保留一条 → 交给所有启用的 ReminderSink
+*/
+
+    public long getScheduled() {
+        return scheduled;
+    }
+
+    public long getPendingChanges() {
+        return changes.size();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getDiscarded() {
+        return discarded.get();
+    }
+
+    private void load(long until) {
+        long from = loadedUntil;
+        long[] loaded = new long[1];
+        taskDeadlineRepository.forEachDeadlineBetween(from + leadSeconds, until + leadSeconds, (taskId, deadline) -> {
+            wheel.add(taskId, deadline - leadSeconds);
+            loaded[0]++;
+        });
+        loadedUntil = until;
+        log.debug("加载任务提醒 [范围:({}, {}], 新增:{}, 时间轮中:{}]", from, until, loaded[0], wheel.size());
+    }
+
+    private void applyChanges() {
+        long[] change;
+        while ((change = changes.poll()) != null) {
+            long remindAt = change[1] - leadSeconds;
+            if (remindAt <= loadedUntil) {
+                wheel.add(change[0], remindAt);
+            }
+        }
+    }
+
+    private void expired(long taskId, long remindAt) {
+        dueIds[dueCount] = taskId;
+        dueDeadlines[dueCount] = remindAt + leadSeconds;
+        dueCount++;
+        if (dueCount == batchSize) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (dueCount == 0) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < dueCount; i++) {
+            ids.add(dueIds[i]);
+        }
+        Map<Long, Reminder> current = new HashMap<>();
+        try {
+            for (Reminder reminder : taskDeadlineRepository.findReminders(ids)) {
+                current.put(reminder.taskId(), reminder);
+            }
+        } catch (RuntimeException e) {
+            // 在时间轮推进过程中调用, 不能把异常抛回时间轮; 这一批提醒丢失
+            log.error("回查到期任务失败, 丢弃 {} 条提醒: {}", dueCount, e.getMessage(), e);
+            discarded.addAndGet(dueCount);
+            dueCount = 0;
+            return;
+        }
+
+        List<Reminder> reminders = new ArrayList<>(current.size());
+        for (int i = 0; i < dueCount; i++) {
+            Reminder reminder = current.get(dueIds[i]);
+            // 取出后同一任务的重复条目不会再匹配
+            if (reminder != null && reminder.deadline() == dueDeadlines[i]) {
+                reminders.add(reminder);
+                current.remove(dueIds[i]);
+            }
+        }
+        discarded.addAndGet(dueCount - reminders.size());
+        dueCount = 0;
+        if (reminders.isEmpty()) {
+            return;
+        }
+
+        for (ReminderSink sink : sinks) {
+            try {
+                sink.deliver(reminders);
+            } catch (RuntimeException e) {
+                log.error("投递任务提醒失败 [{}]: {}", sink.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+        delivered.addAndGet(reminders.size());
+    }
+}
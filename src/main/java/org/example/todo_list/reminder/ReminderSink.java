@@ -0,0 +1,11 @@
+package org.example.todo_list.reminder;
+
+import java.util.List;
+
+/*
+ * 提醒的投递方式. ReminderScheduler 按批调用所有已启用的实现, 在时间轮线程上执行, 实现不能长时间阻塞;
+ * 需要调用外部服务 (邮件, 推送) 的实现应自行转交到自己的线程池.
+ */
+public interface ReminderSink {
+    void deliver(List<Reminder> reminders);
+}
@@ -0,0 +1,144 @@
+package org.example.todo_list.reminder;
+
+import java.util.Arrays;
+
+/*
+ * 分层时间轮 (hierarchical timing wheel), 时间单位为 tick (这里是秒).
+ * 每层 2^bits 个槽, 第 L 层一个槽覆盖 2^(bits*L) 个 tick. 条目放在能容纳它的最低一层,
+ * 时间推进到高层槽对应的时间段开始时, 把槽中的条目重新放入下面的层 (cascade), 最终在第 0 层到期.
+ * 槽的数量固定 (levels * 2^bits), 与条目数无关; 每个条目在槽中只占两个 long (id, 到期时间), 没有对象和定时器.
+ * 不支持删除: 调用方在到期时自行判断条目是否仍然有效. 非线程安全, 只能在一个线程上使用.
+ */
+public final class TimingWheel {
+    // 到期条目的回调, 避免装箱
+    @FunctionalInterface
+    public interface ExpiredConsumer {
+        void accept(long id, long time);
+    }
+
+    private final int bits;
+    private final int levels;
+    private final int mask;
+    private final Bucket[][] buckets;
+
+    // 已经处理过的最后一个 tick
+    private long currentTick;
+    private long size;
+
+    public TimingWheel(int bits, int levels, long startTick) {
+        if (bits < 1 || levels < 1 || bits * levels > 62) {
+            throw new IllegalArgumentException("bits * levels 必须在 1 到 62 之间");
+        }
+        this.bits = bits;
+        this.levels = levels;
+        this.mask = (1 << bits) - 1;
+        this.buckets = new Bucket[levels][1 << bits];
+        for (Bucket[] level : buckets) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new Bucket();
+            }
+        }
+        this.currentTick = startTick;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // 到期时间与当前 tick 相差不超过这个值的条目一定能放入
+    public long getHorizon() {
+        return ((long) mask << (bits * (levels - 1))) - 1;
+    }
+
+    // 加入一个条目, 已经过期的条目在下一个 tick 到期. 超出最高层范围时返回 false, 由调用方稍后再加入
+    public boolean add(long id, long time) {
+        return place(id, time, Math.max(time, currentTick + 1), currentTick);
+    }
+
+    // 推进到 toTick (包含), 依次回调每个到期条目
+    public void advanceTo(long toTick, ExpiredConsumer consumer) {
+        while (currentTick < toTick) {
+            long tick = ++currentTick;
+            // 先把在这个 tick 开始的高层时间段降级, 其中恰好在这个 tick 到期的条目会进入第 0 层当前槽
+            for (int level = levels - 1; level >= 1; level--) {
+                if ((tick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(buckets[level][(int) ((tick >>> (bits * level)) & mask)], tick);
+                }
+            }
+
+            Bucket bucket = buckets[0][(int) (tick & mask)];
+            for (int i = 0; i < bucket.size; i++) {
+                consumer.accept(bucket.ids[i], bucket.times[i]);
+            }
+            size -= bucket.size;
+            bucket.clear();
+        }
+    }
+
+    private void cascade(Bucket bucket, long tick) {
+        if (bucket.size == 0) {
+            return;
+        }
+        // 先把数组从槽中取出再重新放入
+        long[] ids = bucket.ids;
+        long[] times = bucket.times;
+        int count = bucket.size;
+        bucket.detach();
+        size -= count;
+        for (int i = 0; i < count; i++) {
+            place(ids[i], times[i], Math.max(times[i], tick), tick);
+        }
+    }
+
+    // at: 实际放置的 tick (不早于 now), now: 计算层级时的当前 tick.
+    // 选择 at 与 now 在该层相差不足一圈的最低一层, 保证槽对应的时间段还没有开始
+    private boolean place(long id, long time, long at, long now) {
+        for (int level = 0; level < levels; level++) {
+            int shift = bits * level;
+            if ((at >>> shift) - (now >>> shift) <= mask) {
+                buckets[level][(int) ((at >>> shift) & mask)].add(id, time);
+                size++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Bucket {
+        private static final long[] EMPTY = new long[0];
+        // 槽清空后超过这个容量的数组不保留, 突发的大量到期不会让内存一直占着
+        private static final int RETAINED_CAPACITY = 1024;
+
+        long[] ids = EMPTY;
+        long[] times = EMPTY;
+        int size;
+
+        void add(long id, long time) {
+            if (size == ids.length) {
+                int capacity = Math.max(8, size + (size >> 1));
+                ids = Arrays.copyOf(ids, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+            ids[size] = id;
+            times[size] = time;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+            if (ids.length > RETAINED_CAPACITY) {
+                detach();
+            }
+        }
+
+        void detach() {
+            ids = EMPTY;
+            times = EMPTY;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.todo_list.repository;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// 热点读操作分别使用 JPA 还是 MyBatis 实现, 两种实现返回相同的响应, 可以按操作切换做 A/B 对比
+@Data
+@Component
+@ConfigurationProperties(prefix = "read-path")
+public class ReadPathProperties {
+    public enum Impl {
+        JPA, MYBATIS
+    }
+
+    // 用户的全部列表 (GET /list, 包括 expand=tasks)
+    private Impl lists = Impl.JPA;
+
+    // 单个任务 (GET /task/{id})
+    private Impl task = Impl.JPA;
+
+    // 批量获取任务 (POST /task/batch)
+    private Impl tasks = Impl.JPA;
+
+    // 用户摘要缓存未命中时的加载 (GET /user 等)
+    private Impl user = Impl.JPA;
+}
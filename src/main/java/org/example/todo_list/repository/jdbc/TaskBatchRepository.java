@@ -0,0 +1,76 @@
+package org.example.todo_list.repository.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * 批量插入任务. 实体使用 IDENTITY 主键, Hibernate 会因此关闭批量插入,
+ * 所以大批量写入直接走 JDBC batch (配合连接参数 rewriteBatchedStatements=true 会被改写成多值 INSERT).
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaskBatchRepository {
+    private static final String INSERT_SQL =
+            "insert into Task (name, description, deadline, status, todo_list_id) values (?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record NewTask(String name, String description, Long deadline, boolean status, Long todoListId) {
+    }
+
+    // 返回与 tasks 顺序一致的自增 id
+    public List<Long> insertAll(List<NewTask> tasks) {
+        List<Long> ids = new ArrayList<>(tasks.size());
+        for (int from = 0; from < tasks.size(); from += BATCH_SIZE) {
+            List<NewTask> batch = tasks.subList(from, Math.min(from + BATCH_SIZE, tasks.size()));
+            ids.addAll(insertBatch(batch));
+        }
+        return ids;
+    }
+
+    private List<Long> insertBatch(List<NewTask> batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        NewTask task = batch.get(i);
+                        ps.setString(1, task.name());
+                        ps.setString(2, task.description());
+                        if (task.deadline() != null) {
+                            ps.setLong(3, task.deadline());
+                        } else {
+                            ps.setNull(3, Types.BIGINT);
+                        }
+                        ps.setBoolean(4, task.status());
+                        ps.setLong(5, task.todoListId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                },
+                keyHolder);
+
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+}
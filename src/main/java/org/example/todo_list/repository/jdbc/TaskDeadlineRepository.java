@@ -0,0 +1,53 @@
+package org.example.todo_list.repository.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import org.example.todo_list.reminder.Reminder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// 截止日期提醒使用的查询, 按 deadline 范围读取走 idx_task_deadline 索引
+@Repository
+@RequiredArgsConstructor
+public class TaskDeadlineRepository {
+    private static final String RANGE_SQL =
+            "select id, deadline from Task where deadline > ? and deadline <= ? and status = false";
+    private static final String REMINDERS_SQL =
+            "select t.id, l.user_id, t.name, t.deadline from Task t join TodoList l on l.id = t.todo_list_id " +
+                    "where t.id in (:ids) and t.status = false";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${streaming.fetch-size}")
+    private int fetchSize;
+
+    @FunctionalInterface
+    public interface DeadlineConsumer {
+        void accept(long taskId, long deadline);
+    }
+
+    // 逐行回调 (from, to] 内未完成任务的截止日期, 流式读取 (streaming.fetch-size), 不把结果读入内存. 回调中不能在同一连接上执行其他语句
+    public void forEachDeadlineBetween(long from, long to, DeadlineConsumer consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RANGE_SQL);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2)));
+    }
+
+    // 一次 IN 查询取出仍未完成的任务和所属用户, 已删除或已完成的任务不会返回
+    public List<Reminder> findReminders(Collection<Long> taskIds) {
+        return namedParameterJdbcTemplate.query(REMINDERS_SQL, Map.of("ids", taskIds),
+                (rs, rowNum) -> new Reminder(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4)));
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.todo_list.repository.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+
+// 建立全文索引时读取用户全部任务的名称和备注, 通过 uk_todo_list_user_id_category 找到用户的列表, 再按 idx_task_todo_list_id_id 读取任务
+@Repository
+@RequiredArgsConstructor
+public class TaskTextRepository {
+    private static final String USER_TASKS_SQL =
+            "select t.id, t.name, t.description from Task t join TodoList l on l.id = t.todo_list_id " +
+                    "where l.user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${streaming.fetch-size}")
+    private int fetchSize;
+
+    @FunctionalInterface
+    public interface TaskTextConsumer {
+        void accept(long taskId, String name, String description);
+    }
+
+    // 逐行回调用户的全部任务, 流式读取 (streaming.fetch-size), 不把结果读入内存. 回调中不能在同一连接上执行其他语句
+    public void forEachTaskOfUser(Long userId, TaskTextConsumer consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(USER_TASKS_SQL);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, userId);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getString(2), rs.getString(3)));
+    }
+}
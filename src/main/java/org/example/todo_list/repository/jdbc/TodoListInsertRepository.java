@@ -0,0 +1,58 @@
+package org.example.todo_list.repository.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import org.example.todo_list.exception.UserException;
+import org.example.todo_list.exception.errors.UserError;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+/*
+ * 新建列表. (user_id, category) 上有唯一索引, 直接插入, 只把唯一索引冲突当作 "类别已存在",
+ * 不需要先查询是否存在, 也不需要加锁, 并发创建同一个类别时只有一个会插入成功.
+ * 不使用 insert ignore: MySQL 的 IGNORE 会把截断, 外键等错误也降级成警告, 超长的类别会被截断后保存.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TodoListInsertRepository {
+    private static final String INSERT_SQL =
+            "insert into TodoList (category, user_id) values (?, ?)";
+    // 锁定读: 调用方在可重复读事务中时, 普通查询读的是事务开始时的快照, 看不到刚被其他事务提交的列表
+    private static final String SELECT_ID_SQL =
+            "select id from TodoList where user_id = ? and category = ? for update";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 返回新建列表的 id, 类别已存在时返回 null. 用户不存在时抛出 USER_NOT_FOUND, 其他错误照常抛出
+    public Long insertIfAbsent(Long userId, String category) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                ps.setString(1, category);
+                ps.setLong(2, userId);
+                return ps;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            // MySQL 中唯一索引冲突只回滚这一条语句, 调用方所在的事务可以继续
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // 类别的长度和非空已在调用前校验过, 剩下的只有 user_id 外键: 令牌还有效但用户已被删除
+            throw new UserException(UserError.USER_NOT_FOUND);
+        }
+        return keyHolder.getKey().longValue();
+    }
+
+    // 返回已存在的列表 id, 不存在时返回 null
+    public Long findId(Long userId, String category) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_ID_SQL, Long.class, userId, category);
+        return ids.isEmpty() ? null : ids.getFirst();
+    }
+}
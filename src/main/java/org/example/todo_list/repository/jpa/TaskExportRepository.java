@@ -0,0 +1,36 @@
+package org.example.todo_list.repository.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.todo_list.dto.transfer.TransferRecord;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+/*
+ * 导出用的流式查询: 结果是 DTO 不进入持久化上下文, 逐行读取, 内存占用与任务数量无关.
+ * fetch size 来自 streaming.fetch-size: MySQL 下是 Integer.MIN_VALUE, Connector/J 逐行流式读取结果,
+ * 不需要在连接参数中打开 useCursorFetch (它会让所有语句都变成服务端预处理). 流打开期间这个连接不能执行其他语句.
+ * 需要在事务中使用并关闭 Stream.
+ */
+@Repository
+public class TaskExportRepository {
+    private static final String TRANSFER_RECORDS_JPQL =
+            "select new org.example.todo_list.dto.transfer.TransferRecord('task', l.category, t.name, t.description, t.deadline, t.status) " +
+                    "from Task t join t.todoList l where l.user.id = :userId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${streaming.fetch-size}")
+    private int fetchSize;
+
+    public Stream<TransferRecord> streamTransferRecordsByUserId(Long userId) {
+        return entityManager.createQuery(TRANSFER_RECORDS_JPQL, TransferRecord.class)
+                .setParameter("userId", userId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.todo_list.repository.jpa;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/*
+ * TaskQueryRepository 的查询条件, 为 null 的条件不参与过滤.
+ * afterId 为 null 表示第一页; 否则只返回排在 (afterKey, afterId) 之后的任务, afterKey 是上一页最后一个任务的
+ * deadline (Long, 可能为 null) 或 name (String).
+ */
+@Builder
+public record TaskQuery(
+        Long userId,
+        Boolean status,
+        Long deadlineAfter,
+        Long deadlineBefore,
+        List<String> categories,
+        String namePrefix,
+        boolean sortByName,
+        boolean descending,
+        Object afterKey,
+        Long afterId,
+        int limit
+) {
+}
@@ -0,0 +1,102 @@
+package org.example.todo_list.repository.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.todo_list.dto.response.GetTaskResponse;
+import org.example.todo_list.model.Task;
+import org.example.todo_list.model.TodoList;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 按条件查询任务: 用 Criteria API 把传入的条件拼成一条语句, 直接投影成 GetTaskResponse.
+ * 从用户的列表 (uk_todo_list_user_id_category) 连接到任务, 每个列表内按 idx_task_todo_list_id_status_deadline
+ * 做 status + deadline 范围扫描. 排序键加上 id 做 keyset 分页, 翻到第几页代价都一样.
+ * deadline 可以为 null: 依赖 MySQL (以及 H2 的 MySQL 模式) 把 null 当作最小值, 升序排在最前, 降序排在最后.
+ */
+@Repository
+public class TaskQueryRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<GetTaskResponse> find(TaskQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<GetTaskResponse> cq = cb.createQuery(GetTaskResponse.class);
+        Root<Task> task = cq.from(Task.class);
+        Join<Task, TodoList> list = task.join("todoList");
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(list.get("user").get("id"), query.userId()));
+        if (query.categories() != null && !query.categories().isEmpty()) {
+            where.add(list.get("category").in(query.categories()));
+        }
+        if (query.status() != null) {
+            where.add(cb.equal(task.get("status"), query.status()));
+        }
+        Path<Long> deadline = task.get("deadline");
+        if (query.deadlineAfter() != null) {
+            where.add(cb.greaterThanOrEqualTo(deadline, query.deadlineAfter()));
+        }
+        if (query.deadlineBefore() != null) {
+            where.add(cb.lessThan(deadline, query.deadlineBefore()));
+        }
+        Path<String> name = task.get("name");
+        if (query.namePrefix() != null && !query.namePrefix().isEmpty()) {
+            where.add(cb.like(name, escapeLike(query.namePrefix()) + "%", '\\'));
+        }
+
+        Path<Long> id = task.get("id");
+        if (query.afterId() != null) {
+            where.add(query.sortByName()
+                    ? after(cb, name, (String) query.afterKey(), id, query.afterId(), query.descending())
+                    : after(cb, deadline, (Long) query.afterKey(), id, query.afterId(), query.descending()));
+        }
+
+        Path<?> key = query.sortByName() ? name : deadline;
+        cq.select(cb.construct(GetTaskResponse.class,
+                        id, deadline, name, task.get("description"), task.get("status")))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(query.descending() ? cb.desc(key) : cb.asc(key),
+                        query.descending() ? cb.desc(id) : cb.asc(id));
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(query.limit())
+                .getResultList();
+    }
+/* TODO 按条件查询任务 --- ok
+开始
+├─→ 固定条件: 列表属于该用户
+├─→ 可选条件: 类别 in, 完成状态, 截止时间 [after, before), 任务名前缀 (like 'xxx%')
+├─→ 有游标 → 加上 "排在 (key, id) 之后" 的条件
+├─→ 按 (deadline 或 name, id) 升序/降序排序, 取 limit 条
+└─→ 投影为 GetTaskResponse 返回
+*/
+
+    // 排在 (key, id) 之后: 升序时 null 在最前, 降序时 null 在最后
+    private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Path<T> key, T afterKey,
+                                                                    Path<Long> id, Long afterId, boolean descending) {
+        if (afterKey == null) {
+            Predicate sameKey = cb.and(cb.isNull(key),
+                    descending ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId));
+            return descending ? sameKey : cb.or(sameKey, cb.isNotNull(key));
+        }
+        Predicate sameKey = cb.and(cb.equal(key, afterKey),
+                descending ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId));
+        if (descending) {
+            return cb.or(cb.lessThan(key, afterKey), sameKey, cb.isNull(key));
+        }
+        return cb.or(cb.greaterThan(key, afterKey), sameKey);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
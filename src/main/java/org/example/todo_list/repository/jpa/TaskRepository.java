@@ -1,14 +1,18 @@
 package org.example.todo_list.repository.jpa;
 
 import jakarta.transaction.Transactional;
+import org.example.todo_list.dto.response.GetTaskResponse;
 import org.example.todo_list.model.Task;
 import org.example.todo_list.model.TodoList;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
     @Transactional
@@ -20,8 +24,30 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @Query("delete from Task t where t.todoList.id = :todolist")
     void deleteTasksByTodoListId(@Param("todolist") Long todolistId);
 
+    @Transactional
+    @Modifying
+    @Query("delete from Task t where t.id = :id")
+    int deleteTaskById(@Param("id") Long id);
+
+    @Query("select t.todoList.id from Task t where t.id = :id")
+    Optional<Long> findTodoListIdById(@Param("id") Long id);
+
     boolean existsByName(String name);
 
     boolean existsById(Integer id);
 
+    // 一次 IN 查询直接投影成响应对象, 只返回属于该用户的任务
+    @Query("select new org.example.todo_list.dto.response.GetTaskResponse(t.id, t.deadline, t.name, t.description, t.status) " +
+            "from Task t where t.id in :ids and t.todoList.user.id = :userId")
+    List<GetTaskResponse> findResponsesByIdInAndUserId(@Param("ids") Collection<Long> ids,
+                                                       @Param("userId") Long userId);
+
+    // keyset 分页, 只返回 id 大于 afterId 的任务, 深度翻页和第一页的代价相同
+    @Query("select new org.example.todo_list.dto.response.GetTaskResponse(t.id, t.deadline, t.name, t.description, t.status) " +
+            "from Task t where t.todoList.id = :listId and t.todoList.user.id = :userId and t.id > :afterId order by t.id")
+    List<GetTaskResponse> findPageByTodoListId(@Param("listId") Long listId,
+                                               @Param("userId") Long userId,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
 }
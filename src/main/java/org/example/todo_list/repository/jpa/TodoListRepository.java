@@ -2,6 +2,10 @@ package org.example.todo_list.repository.jpa;
 
 import jakarta.transaction.Transactional;
 import org.example.todo_list.model.TodoList;
+import org.example.todo_list.repository.jpa.projection.ListCategoryRow;
+import org.example.todo_list.repository.jpa.projection.ListTaskIdRow;
+import org.example.todo_list.repository.jpa.projection.ListTaskRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -22,16 +26,50 @@ public interface TodoListRepository extends JpaRepository<TodoList, Long> {
 //    @Query("select t.id from TodoList t where t.user.id = :userId")
 //    List<Long> findIdsByUser_Id(@Param("userId") Long userId);
 
+    // 一次 left join 取出列表和任务 id, 语句数量与列表个数无关
+    @Query("select new org.example.todo_list.repository.jpa.projection.ListTaskIdRow(l.id, l.category, t.id) " +
+            "from TodoList l left join l.tasks t where l.user.id = :userId order by l.id, t.id")
+    List<ListTaskIdRow> findListTaskIdRowsByUserId(@Param("userId") Long userId);
+
+    // 按 id 查询时同时检查归属, 不属于该用户的列表没有任何行
+    @Query("select new org.example.todo_list.repository.jpa.projection.ListTaskIdRow(l.id, l.category, t.id) " +
+            "from TodoList l left join l.tasks t where l.id = :id and l.user.id = :userId order by t.id")
+    List<ListTaskIdRow> findListTaskIdRowsByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // 一次 left join 取出列表和它的任务, 按任务 id 排序, 行数由 pageable 限制
+    @Query("select new org.example.todo_list.repository.jpa.projection.ListTaskRow(" +
+            "l.id, l.category, t.id, t.deadline, t.name, t.description, t.status) " +
+            "from TodoList l left join l.tasks t where l.id = :id and l.user.id = :userId order by t.id")
+    List<ListTaskRow> findListTaskRowsByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId, Pageable pageable);
+
+    // 一次查询取出用户的全部列表, 每个列表最多 limit 个任务 (按任务 id), 由窗口函数在数据库中截断,
+    // 返回的行数与任务总数无关. 按列表和任务 id 排序, 同一个列表的行是连续的
+    @Query("select new org.example.todo_list.repository.jpa.projection.ListTaskRow(" +
+            "l.id, l.category, t.id, t.deadline, t.name, t.description, t.status) " +
+            "from TodoList l left join (" +
+            "select t2.id as id, t2.todoList.id as listId, t2.deadline as deadline, t2.name as name, " +
+            "t2.description as description, t2.status as status, " +
+            "row_number() over (partition by t2.todoList.id order by t2.id) as rn " +
+            "from Task t2 where t2.todoList.user.id = :userId) t on t.listId = l.id and t.rn <= :limit " +
+            "where l.user.id = :userId order by l.id, t.id")
+    List<ListTaskRow> findListTaskRowsByUserId(@Param("userId") Long userId, @Param("limit") long limit);
+
+    boolean existsByIdAndUser_Id(Long id, Long userId);
+
+    @Query("select new org.example.todo_list.repository.jpa.projection.ListCategoryRow(l.id, l.category) " +
+            "from TodoList l where l.user.id = :userId")
+    List<ListCategoryRow> findCategoriesByUserId(@Param("userId") Long userId);
+
+    @Query("select l.user.id from TodoList l where l.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    @Modifying
     @Transactional
-    @Query("select t from TodoList t where t.category = :category and t.user.id = :userId")
-    Optional<TodoList> findTodoListByCategoryAndUserId(@Param("category") String category,
-                                             @Param("userId") Long userId);
+    @Query("update TodoList l set l.category = :category where l.id = :id")
+    int updateCategory(@Param("id") Long id, @Param("category") String category);
 
     boolean existsTodoListByUserId(@Param("userId") Long userId);
 
-    boolean existsByUser_IdAndCategory(@Param("userId") Long userId,
-                                       @Param("category") String category);
-
     @Modifying
     @Transactional
     @Query("delete from TodoList t where t.user.id = :userId and t.id = :Id")
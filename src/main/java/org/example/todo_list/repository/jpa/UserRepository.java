@@ -1,12 +1,36 @@
 package org.example.todo_list.repository.jpa;
 
+import jakarta.transaction.Transactional;
 import org.example.todo_list.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     User findByUsername(String username);
+
+    // 返回更新的行数, 0 表示用户不存在
+    @Transactional
+    @Modifying
+    @Query("update User u set u.avatarUrl = :avatarUrl where u.id = :id")
+    int updateAvatarUrl(@Param("id") Long id, @Param("avatarUrl") String avatarUrl);
+
+    // 只有头像仍然是 currentUrl 时才替换, 避免后台任务覆盖用户之后上传的新头像
+    @Transactional
+    @Modifying
+    @Query("update User u set u.avatarUrl = :avatarUrl where u.id = :id and u.avatarUrl = :currentUrl")
+    int replaceAvatarUrl(@Param("id") Long id,
+                         @Param("currentUrl") String currentUrl,
+                         @Param("avatarUrl") String avatarUrl);
+
+    // 所有仍在使用的头像地址, 头像清理任务据此判断哪些文件还有引用
+    @Query("select distinct u.avatarUrl from User u where u.avatarUrl is not null")
+    List<String> findAllAvatarUrls();
 }
@@ -0,0 +1,8 @@
+package org.example.todo_list.repository.jpa.projection;
+
+// 用户的一个任务列表: 列表 id 和类别
+public record ListCategoryRow(
+        Long listId,
+        String category
+) {
+}
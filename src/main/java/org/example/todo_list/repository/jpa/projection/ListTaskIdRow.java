@@ -0,0 +1,9 @@
+package org.example.todo_list.repository.jpa.projection;
+
+// 任务列表 left join 任务 id 的一行结果, 列表没有任务时 taskId 为 null
+public record ListTaskIdRow(
+        Long listId,
+        String category,
+        Long taskId
+) {
+}
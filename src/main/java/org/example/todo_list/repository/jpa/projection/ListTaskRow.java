@@ -0,0 +1,13 @@
+package org.example.todo_list.repository.jpa.projection;
+
+// 任务列表 left join 任务的一行结果, 列表没有任务时 task 相关字段都为 null
+public record ListTaskRow(
+        Long listId,
+        String category,
+        Long taskId,
+        Long deadline,
+        String name,
+        String description,
+        Boolean status
+) {
+}
@@ -1,5 +1,17 @@
 package org.example.todo_list.repository.mybatis;
 
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.example.todo_list.dto.response.GetTaskResponse;
+
+import java.util.Collection;
+import java.util.List;
+
+// 与 TaskRepository 中同名查询的语义相同, 结果直接映射成响应对象. SQL 见 resources/mapper/TaskMapper.xml
+@Mapper
 public interface TaskMapper {
+    // 任务不存在或不属于该用户时返回 null
+    GetTaskResponse findResponseByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
 
+    List<GetTaskResponse> findResponsesByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
 }
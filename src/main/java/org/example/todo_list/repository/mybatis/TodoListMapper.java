@@ -1,5 +1,17 @@
 package org.example.todo_list.repository.mybatis;
 
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.example.todo_list.repository.mybatis.projection.ListDetail;
+import org.example.todo_list.repository.mybatis.projection.ListSummary;
+
+import java.util.List;
+
+// 用户的全部列表, 一条 left join 查询, 由嵌套 resultMap 按列表 id 分组. SQL 见 resources/mapper/TodoListMapper.xml
+@Mapper
 public interface TodoListMapper {
-    //    如果想用mybatis也可以自己构建
+    List<ListSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    // 每个列表最多 limit 个任务
+    List<ListDetail> findDetailsByUserId(@Param("userId") Long userId, @Param("limit") int limit);
 }
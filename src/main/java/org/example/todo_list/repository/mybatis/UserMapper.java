@@ -1,5 +1,12 @@
 package org.example.todo_list.repository.mybatis;
 
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.example.todo_list.dto.response.UserResponse;
+
+// 用户摘要, 只查询 id, 用户名, 头像三列, 不加载密码和实体. SQL 见 resources/mapper/UserMapper.xml
+@Mapper
 public interface UserMapper {
-    //    如果想用mybatis也可以自己构建
+    // 用户不存在时返回 null
+    UserResponse findSummaryById(@Param("id") Long id);
 }
@@ -0,0 +1,15 @@
+package org.example.todo_list.repository.mybatis.projection;
+
+import lombok.Data;
+import org.example.todo_list.dto.response.GetTaskResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// TodoListMapper 嵌套 resultMap 的结果: 列表和它的前 limit 个任务, 任务直接通过构造函数映射成 GetTaskResponse
+@Data
+public class ListDetail {
+    private Long id;
+    private String category;
+    private List<GetTaskResponse> tasks = new ArrayList<>();
+}
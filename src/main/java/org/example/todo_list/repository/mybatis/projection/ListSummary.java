@@ -0,0 +1,19 @@
+package org.example.todo_list.repository.mybatis.projection;
+
+import lombok.Data;
+import org.example.todo_list.dto.response.GetListResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// TodoListMapper 嵌套 resultMap 的结果: 列表和它的任务 id. MyBatis 不能把嵌套集合传给 record 的构造函数, 先填充这个对象再转换
+@Data
+public class ListSummary {
+    private Long id;
+    private String category;
+    private List<Long> tasks = new ArrayList<>();
+
+    public GetListResponse toResponse() {
+        return new GetListResponse(id, category, tasks);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.todo_list.search;
+
+import java.util.List;
+
+// 按得分降序排列的任务 id (最多 limit 个), total 为命中的任务总数
+public record SearchResult(List<Long> taskIds, int total) {
+    public static final SearchResult EMPTY = new SearchResult(List.of(), 0);
+}
@@ -0,0 +1,101 @@
+package org.example.todo_list.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.repository.jdbc.TaskTextRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 任务名和备注的全文索引, 每个用户一个 UserTaskIndex, 按倒排表总长度计算权重放在 Caffeine 中.
+ * 用户第一次搜索时用一条查询加载他的全部任务建立索引; 之后新建/修改/删除任务时必须调用 taskSaved/taskDeleted 同步更新,
+ * 索引还没有加载的用户直接跳过. 批量导入, 删除列表这类一次改动很多任务的操作调用 invalidateUser, 下次搜索时重建.
+ * 只在本实例内存中, 部署多个实例时其他实例上的修改不会同步 (与 UserDirectory 相同).
+ * Caffeine 只在放入和替换时计算权重, 增量更新使权重增长超过 1/4 时才重新放入, 所以 search.max-postings 是近似的上限:
+ * 每个用户的索引最多比计入的权重大约 1/4 (小索引至少 64).
+ */
+@Slf4j
+@Component
+public class TaskSearchIndex {
+    // 查询最多使用前几个词
+    private static final int MAX_QUERY_TERMS = 8;
+
+    private final TaskTextRepository taskTextRepository;
+    private final Cache<Long, UserTaskIndex> indexes;
+    private final AtomicLong builds = new AtomicLong();
+
+    public TaskSearchIndex(TaskTextRepository taskTextRepository,
+                           @Value("${search.max-postings}") long maxPostings) {
+        this.taskTextRepository = taskTextRepository;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxPostings)
+                .weigher((Long userId, UserTaskIndex index) -> index.weigh())
+                .build();
+    }
+
+    public SearchResult search(Long userId, String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>();
+        Tokenizer.tokenizeQuery(query, terms::add);
+        if (terms.isEmpty()) {
+            return SearchResult.EMPTY;
+        }
+        List<String> queryTerms = new ArrayList<>(terms);
+        if (queryTerms.size() > MAX_QUERY_TERMS) {
+            queryTerms = queryTerms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        UserTaskIndex index = indexes.get(userId, id -> new UserTaskIndex());
+        if (index.ensureBuilt(i -> taskTextRepository.forEachTaskOfUser(userId, i::put))) {
+            builds.incrementAndGet();
+            log.debug("建立搜索索引 [用户:{}, 权重:{}]", userId, index.weight());
+            // 重新放入以更新权重; 建立期间索引已被移除或替换时不放回
+            indexes.asMap().replace(userId, index, index);
+        }
+        return index.search(queryTerms, limit);
+    }
+/* TODO 搜索任务 --- ok
+开始
+├─ 查询分词 (与建索引相同的规则), 去重, 最多 8 个词; 没有词 → 返回空结果
+├─ 取出用户的索引 → 还没有加载或删除过多需要重建 → 一条查询读取用户全部任务建立索引
+├─ 每个词按前缀匹配词典, 所有词都命中的任务按 idf × 字段权重 (任务名 3, 备注 1) 计分
+└─ 返回得分最高的 limit 个任务 id 和命中总数
+*/
+
+    public void taskSaved(Long userId, Long taskId, String name, String description) {
+        UserTaskIndex index = indexes.getIfPresent(userId);
+        if (index != null) {
+            index.put(taskId, name, description);
+            if (index.needsReweigh()) {
+                // 重新计算权重, 超出容量时淘汰其他用户的索引; 期间索引已被移除或替换时不放回
+                indexes.asMap().replace(userId, index, index);
+            }
+        }
+    }
+
+    public void taskDeleted(Long userId, Long taskId) {
+        UserTaskIndex index = indexes.getIfPresent(userId);
+        if (index != null) {
+            index.remove(taskId);
+        }
+    }
+
+    // 一次改动很多任务或事务回滚时调用, 下次搜索时重建
+    public void invalidateUser(Long userId) {
+        indexes.invalidate(userId);
+    }
+
+    public long getIndexedUsers() {
+        return indexes.estimatedSize();
+    }
+
+    public long getBuilds() {
+        return builds.get();
+    }
+}
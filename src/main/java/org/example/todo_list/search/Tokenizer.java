@@ -0,0 +1,91 @@
+package org.example.todo_list.search;
+
+import java.util.function.Consumer;
+
+/*
+ * 任务名和备注的分词. 字母数字连续的一段作为一个词 (转小写);
+ * 中日韩文字没有空格分隔, 连续的一段按相邻两个字切分 (二元组), 再加上最后一个字, 这样用任意一个字做前缀都能命中.
+ */
+final class Tokenizer {
+    // 超过这个长度的词截断, 避免超长的无意义字符串进入词典
+    private static final int MAX_TOKEN_LENGTH = 32;
+
+    private Tokenizer() {
+    }
+
+    // 建索引时使用
+    static void tokenize(String text, Consumer<String> out) {
+        tokenize(text, false, out);
+    }
+
+    // 查询时使用: 中文段的二元组已经覆盖了最后一个字, 不再单独输出
+    static void tokenizeQuery(String text, Consumer<String> out) {
+        tokenize(text, true, out);
+    }
+
+    private static void tokenize(String text, boolean query, Consumer<String> out) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        StringBuilder word = new StringBuilder();
+        int cjkStart = -1;
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            boolean cjk = isCjk(cp);
+            if (cjk) {
+                flushWord(word, out);
+                if (cjkStart < 0) {
+                    cjkStart = i;
+                }
+            } else {
+                if (cjkStart >= 0) {
+                    emitCjk(text, cjkStart, i, query, out);
+                    cjkStart = -1;
+                }
+                if (Character.isLetterOrDigit(cp)) {
+                    if (word.length() < MAX_TOKEN_LENGTH) {
+                        word.appendCodePoint(Character.toLowerCase(cp));
+                    }
+                } else {
+                    flushWord(word, out);
+                }
+            }
+            i += Character.charCount(cp);
+        }
+        flushWord(word, out);
+        if (cjkStart >= 0) {
+            emitCjk(text, cjkStart, text.length(), query, out);
+        }
+    }
+
+    private static void flushWord(StringBuilder word, Consumer<String> out) {
+        if (!word.isEmpty()) {
+            out.accept(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void emitCjk(String text, int start, int end, boolean query, Consumer<String> out) {
+        int first = start;
+        int second = text.offsetByCodePoints(first, 1);
+        while (second < end) {
+            int third = text.offsetByCodePoints(second, 1);
+            out.accept(text.substring(first, third));
+            first = second;
+            second = third;
+        }
+        // 最后一个字: 只有一个字的段在查询时也需要
+        if (!query || first == start) {
+            out.accept(text.substring(first, end));
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,334 @@
+package org.example.todo_list.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/*
+ * 一个用户的倒排索引. 每个任务分配一个递增的文档号 (int), 词典按字典序保存 (支持前缀查找),
+ * 每个词的倒排表是按文档号递增的 int 数组, 另有一个 byte 数组记录词出现在任务名还是备注中.
+ * 修改任务时旧文档只标记删除, 重新分配文档号追加到倒排表末尾, 倒排表始终有序, 不需要移动元素;
+ * 删除的文档多于存活的文档后, 索引标记为需要重建, 下次查询时从数据库重新加载.
+ * 查询共享读锁, 修改和重建使用写锁.
+ */
+final class UserTaskIndex {
+    private static final byte FIELD_NAME = 1;
+    private static final byte FIELD_DESCRIPTION = 2;
+    // 任务名中的命中比备注中的命中权重更高
+    private static final float NAME_WEIGHT = 3f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    // 删除的文档少于这个数时不重建
+    private static final int REBUILD_MIN_DELETED = 1024;
+    // 一个查询词匹配到的倒排表总长度超过文档数的 1/16 时, 合并时不排序
+    private static final int DENSE_UNION_SHIFT = 4;
+    // 权重比上次放入缓存时增长超过 1/4 (且至少 REWEIGH_MIN_GROWTH) 时需要重新放入缓存
+    private static final int REWEIGH_SHIFT = 2;
+    private static final int REWEIGH_MIN_GROWTH = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    // 任务 id -> 当前文档号
+    private final Map<Long, Integer> docs = new HashMap<>();
+    // 文档号 -> 任务 id
+    private long[] taskIds = new long[16];
+    private int docCount;
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private int postingCount;
+    private volatile boolean built;
+    // 缓存上次计算的权重. Caffeine 只在放入和替换时调用 weigher, 之后增量追加的倒排表不计入
+    private volatile int weighed;
+
+    // 还没有加载或需要重建时, 在写锁内清空并通过 loader 重新加载. 实际加载了返回 true
+    boolean ensureBuilt(Consumer<UserTaskIndex> loader) {
+        if (built) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (built) {
+                return false;
+            }
+            clear();
+            loader.accept(this);
+            built = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 新增或修改任务, 已存在的任务先删除旧文档
+    void put(long taskId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(docs.get(taskId));
+            int doc = docCount++;
+            if (doc == taskIds.length) {
+                taskIds = Arrays.copyOf(taskIds, doc + (doc >> 1));
+            }
+            taskIds[doc] = taskId;
+            docs.put(taskId, doc);
+            Tokenizer.tokenize(name, term -> addPosting(term, doc, FIELD_NAME));
+            Tokenizer.tokenize(description, term -> addPosting(term, doc, FIELD_DESCRIPTION));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long taskId) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(docs.remove(taskId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 缓存权重: 倒排表的总长度加上文档数
+    int weight() {
+        return Math.max(1, postingCount + docCount);
+    }
+
+    // 供 Caffeine 的 weigher 调用, 记录缓存当前使用的权重
+    int weigh() {
+        int weight = weight();
+        weighed = weight;
+        return weight;
+    }
+
+    // 增量更新后权重明显超过缓存使用的权重, 需要重新放入缓存. 删除只做标记, 权重不会减少
+    boolean needsReweigh() {
+        int last = weighed;
+        return weight() - last > Math.max(last >> REWEIGH_SHIFT, REWEIGH_MIN_GROWTH);
+    }
+
+    /*
+     * 每个查询词按前缀匹配词典中的词, 所有查询词都要命中 (AND).
+     * 每个查询词匹配到的倒排表先合并成一个按文档号递增的列表, 再从最短的开始依次求交集, 不需要与文档总数一样大的数组.
+     * 得分 = Σ 查询词的 idf × 命中字段的权重, 同一个查询词通过多个词典词命中同一个任务时字段取并集.
+     * 得分相同时文档号大的 (新建或最近修改的) 在前.
+     */
+    SearchResult search(List<String> queryTerms, int limit) {
+        lock.readLock().lock();
+        try {
+            int live = docs.size();
+            List<Hits> hitsByTerm = new ArrayList<>(queryTerms.size());
+            for (String prefix : queryTerms) {
+                Hits hits = collect(terms.subMap(prefix, prefix + Character.MAX_VALUE).values());
+                if (hits.size == 0) {
+                    return SearchResult.EMPTY;
+                }
+                hitsByTerm.add(hits);
+            }
+            hitsByTerm.sort(Comparator.comparingInt(hits -> hits.size));
+
+            Hits first = hitsByTerm.getFirst();
+            int[] candidates = Arrays.copyOf(first.docs, first.size);
+            float[] scores = new float[first.size];
+            float idf = idf(live, first.size);
+            for (int i = 0; i < first.size; i++) {
+                scores[i] = idf * weight(first.fields[i]);
+            }
+            int candidateCount = first.size;
+
+            for (int t = 1; t < hitsByTerm.size() && candidateCount > 0; t++) {
+                Hits hits = hitsByTerm.get(t);
+                idf = idf(live, hits.size);
+                // 两个有序列表求交集, 结果写回 candidates 前部
+                int kept = 0;
+                int j = 0;
+                for (int i = 0; i < candidateCount && j < hits.size; i++) {
+                    int doc = candidates[i];
+                    while (j < hits.size && hits.docs[j] < doc) {
+                        j++;
+                    }
+                    if (j < hits.size && hits.docs[j] == doc) {
+                        candidates[kept] = doc;
+                        scores[kept] = scores[i] + idf * weight(hits.fields[j]);
+                        kept++;
+                    }
+                }
+                candidateCount = kept;
+            }
+
+            // 保留得分最高的 limit 个, 按得分降序插入. 倒序遍历, 得分相同时先到的文档号更大, 后来的不需要移动
+            int[] top = new int[Math.min(limit, candidateCount)];
+            float[] topScores = new float[top.length];
+            int topCount = 0;
+            int total = 0;
+            for (int c = candidateCount - 1; c >= 0; c--) {
+                int doc = candidates[c];
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                total++;
+                float score = scores[c];
+                if (topCount == top.length && score <= topScores[topCount - 1]) {
+                    continue;
+                }
+                int pos = topCount == top.length ? topCount - 1 : topCount++;
+                while (pos > 0 && score > topScores[pos - 1]) {
+                    top[pos] = top[pos - 1];
+                    topScores[pos] = topScores[pos - 1];
+                    pos--;
+                }
+                top[pos] = doc;
+                topScores[pos] = score;
+            }
+
+            Long[] ids = new Long[topCount];
+            for (int i = 0; i < topCount; i++) {
+                ids[i] = taskIds[top[i]];
+            }
+            return new SearchResult(List.of(ids), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 合并一个查询词匹配到的所有倒排表. 只有一个时直接使用; 总长度较小时按 (文档号, 字段) 编码成 long 排序后合并相同的文档,
+    // 较大时 (很短的前缀) 在与文档总数一样大的数组上标记字段, 再按文档号顺序取出
+    private Hits collect(Collection<Postings> matches) {
+        if (matches.size() == 1) {
+            Postings postings = matches.iterator().next();
+            return new Hits(postings.docs, postings.fields, postings.size);
+        }
+        int total = 0;
+        for (Postings postings : matches) {
+            total += postings.size;
+        }
+        return total >= docCount >> DENSE_UNION_SHIFT ? denseUnion(matches) : sortedUnion(matches, total);
+    }
+
+    private Hits denseUnion(Collection<Postings> matches) {
+        byte[] marks = new byte[docCount];
+        int size = 0;
+        for (Postings postings : matches) {
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                if (marks[doc] == 0) {
+                    size++;
+                }
+                marks[doc] |= postings.fields[i];
+            }
+        }
+        int[] docs = new int[size];
+        byte[] fields = new byte[size];
+        int k = 0;
+        for (int doc = 0; doc < marks.length; doc++) {
+            if (marks[doc] != 0) {
+                docs[k] = doc;
+                fields[k] = marks[doc];
+                k++;
+            }
+        }
+        return new Hits(docs, fields, size);
+    }
+
+    private static Hits sortedUnion(Collection<Postings> matches, int total) {
+        long[] keys = new long[total];
+        int k = 0;
+        for (Postings postings : matches) {
+            for (int i = 0; i < postings.size; i++) {
+                keys[k++] = ((long) postings.docs[i] << 8) | postings.fields[i];
+            }
+        }
+        Arrays.sort(keys);
+
+        int[] docs = new int[total];
+        byte[] fields = new byte[total];
+        int size = 0;
+        for (long key : keys) {
+            int doc = (int) (key >>> 8);
+            byte field = (byte) key;
+            if (size > 0 && docs[size - 1] == doc) {
+                fields[size - 1] |= field;
+            } else {
+                docs[size] = doc;
+                fields[size] = field;
+                size++;
+            }
+        }
+        return new Hits(docs, fields, size);
+    }
+
+    private static float idf(int live, int df) {
+        return (float) Math.log(1 + (double) Math.max(live, 1) / df);
+    }
+
+    private static float weight(byte field) {
+        return ((field & FIELD_NAME) != 0 ? NAME_WEIGHT : 0) + ((field & FIELD_DESCRIPTION) != 0 ? DESCRIPTION_WEIGHT : 0);
+    }
+
+    private void addPosting(String term, int doc, byte field) {
+        if (terms.computeIfAbsent(term, key -> new Postings()).add(doc, field)) {
+            postingCount++;
+        }
+    }
+
+    private void markDeleted(Integer doc) {
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        if (deletedCount >= REBUILD_MIN_DELETED && deletedCount > docs.size()) {
+            built = false;
+        }
+    }
+
+    private void clear() {
+        terms.clear();
+        docs.clear();
+        taskIds = new long[16];
+        docCount = 0;
+        deleted.clear();
+        deletedCount = 0;
+        postingCount = 0;
+    }
+
+    // 一个查询词命中的文档, 按文档号递增, 不重复
+    private static final class Hits {
+        final int[] docs;
+        final byte[] fields;
+        final int size;
+
+        Hits(int[] docs, byte[] fields, int size) {
+            this.docs = docs;
+            this.fields = fields;
+            this.size = size;
+        }
+    }
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        byte[] fields = new byte[2];
+        int size;
+
+        // 文档号只会递增, 同一文档的多次出现合并字段. 追加了新元素返回 true
+        boolean add(int doc, byte field) {
+            if (size > 0 && docs[size - 1] == doc) {
+                fields[size - 1] |= field;
+                return false;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size << 1);
+                fields = Arrays.copyOf(fields, size << 1);
+            }
+            docs[size] = doc;
+            fields[size] = field;
+            size++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.todo_list.security;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+// 不需要登录就能访问的路径. WebMVCConfig 注册拦截器和 JwtInterceptor 自己的判断共用这一份
+public final class AuthExcludePaths {
+    public static final String[] PATTERNS = {
+            "/auth/**",
+            "/static/**",
+            "/images/**",
+            "/user/log*",
+            "/user/register",
+            "/v3/api-docs/**",
+            "/swagger-ui*",
+            "/swagger-ui/**",
+            "/swagger-resources/**",
+            "/webjars/**"
+    };
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+    // 启动时把模式预编译成前缀规则, 匹配时只做字符串比较, 不产生任何对象
+    private static final Rule[] RULES = compile(PATTERNS);
+
+    private AuthExcludePaths() {
+    }
+
+    public static boolean matches(String uri) {
+        for (Rule rule : RULES) {
+            if (rule.matches(uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Rule[] compile(String[] patterns) {
+        Rule[] rules = new Rule[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            rules[i] = Rule.of(patterns[i]);
+        }
+        return rules;
+    }
+
+    private record Rule(Kind kind, String prefix, String pattern) {
+        enum Kind {
+            EXACT,      // /user/register
+            SUBTREE,    // /images/**  匹配 /images 及其所有子路径
+            SEGMENT,    // /user/log*  匹配同一层级中以 /user/log 开头的路径
+            ANT         // 其他复杂模式, 交给 AntPathMatcher
+        }
+
+        static Rule of(String pattern) {
+            String body = pattern.endsWith("/**") ? pattern.substring(0, pattern.length() - 3) : pattern;
+            if (pattern.endsWith("/**") && !hasWildcard(body)) {
+                return new Rule(Kind.SUBTREE, body, pattern);
+            }
+            if (pattern.endsWith("*") && !hasWildcard(pattern.substring(0, pattern.length() - 1))) {
+                return new Rule(Kind.SEGMENT, pattern.substring(0, pattern.length() - 1), pattern);
+            }
+            if (!hasWildcard(pattern)) {
+                return new Rule(Kind.EXACT, pattern, pattern);
+            }
+            return new Rule(Kind.ANT, null, pattern);
+        }
+
+        boolean matches(String uri) {
+            return switch (kind) {
+                case EXACT -> uri.equals(prefix);
+                case SUBTREE -> uri.startsWith(prefix)
+                        && (uri.length() == prefix.length() || uri.charAt(prefix.length()) == '/');
+                case SEGMENT -> uri.startsWith(prefix) && uri.indexOf('/', prefix.length()) < 0;
+                case ANT -> PATH_MATCHER.match(pattern, uri);
+            };
+        }
+
+        private static boolean hasWildcard(String s) {
+            return s.indexOf('*') >= 0 || s.indexOf('?') >= 0 || s.indexOf('{') >= 0;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.todo_list.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+    // 默认密钥, kid 为 "default", 同时用于校验没有 kid 的旧 token
+    private String secret;
+
+    private long expiration;
+
+    // 签发新 token 使用的 kid
+    private String activeKid = JwtUtils.DEFAULT_KID;
+
+    // 轮换用的其他密钥: kid -> secret
+    private Map<String, String> keys = new HashMap<>();
+
+    // 已验签 token 缓存的最大条目数
+    private long cacheMaxSize = 10_000;
+}
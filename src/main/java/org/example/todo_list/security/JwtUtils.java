@@ -1,37 +1,114 @@
 package org.example.todo_list.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
-//@NoArgsConstructor
+@RequiredArgsConstructor
 public class JwtUtils {
-    // 通过 Base64 编码的密钥（推荐环境变量注入）
-    @Value("${jwt.secret}")
-    private String secret;
+    public static final String DEFAULT_KID = "default";
 
-    @Value("${jwt.expiration}")
-    private long expirationSeconds;
+    private final JwtProperties jwtProperties;
 
+    // 密钥和 parser 都是不可变且线程安全的, 启动时构建一次
+    private Map<String, SecretKey> keys;
+    private String activeKid;
+    private SecretKey activeKey;
+    private JwtParser parser;
+
+    // 已经验签过的 token: token 摘要 -> claims, 最晚在 token 过期时淘汰
+    private Cache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        Map<String, SecretKey> keyMap = new HashMap<>();
+        keyMap.put(DEFAULT_KID, Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8)));
+        jwtProperties.getKeys().forEach((kid, secret) ->
+                keyMap.put(kid, Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8))));
+        keys = Map.copyOf(keyMap);
+
+        activeKid = jwtProperties.getActiveKid();
+        activeKey = keys.get(activeKid);
+        if (activeKey == null) {
+            throw new IllegalStateException("jwt.active-kid 没有对应的密钥: " + activeKid);
+        }
+
+        parser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                // 没有 kid 的旧 token 使用默认密钥校验
+                String kid = header.getKeyId() == null ? DEFAULT_KID : header.getKeyId();
+                Key key = keys.get(kid);
+                if (key == null) {
+                    throw new UnsupportedJwtException("未知的 kid: " + kid);
+                }
+                return key;
+            }
+        }).build();
+
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCacheMaxSize())
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
 
     // 生成 Token
     public String generateToken(Long userId) {
-        return Jwts.builder().claim("userId", userId)                 // 用户标识（推荐用唯一ID）
+        return Jwts.builder()
+                .header().keyId(activeKid).and()    // 标明签名用的密钥, 便于轮换
+                .claim("userId", userId)                 // 用户标识（推荐用唯一ID）
                 .issuedAt(new Date())               // 签发时间
-                .expiration(new Date(System.currentTimeMillis() + expirationSeconds * 1000)) // 过期时间
-                .signWith(getSecretKey())           // 密钥签名
+                .expiration(new Date(System.currentTimeMillis() + jwtProperties.getExpiration() * 1000)) // 过期时间
+                .signWith(activeKey)           // 密钥签名
                 .compact();
     }
 
     public Claims parseToken(String token) {
+        String digest = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        // 缓存的淘汰可能略晚于过期时间, 命中时再确认一次
+        if (cached != null && cached.getExpiration().getTime() > System.currentTimeMillis()) {
+            return cached;
+        }
+
+        Claims claims;
         try {
-            return Jwts.parser().verifyWith(getSecretKey()).build().parseSignedClaims(token).getPayload();
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             throw new SecurityException("Token 已过期", e);
         } catch (MalformedJwtException e) {
@@ -39,10 +116,26 @@ public class JwtUtils {
         } catch (JwtException e) {
             throw new SecurityException("Token 验证失败", e);
         }
+
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
     }
 
-    // 获取安全的密钥对象
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    // 已验签 token 缓存的命中/未命中统计
+    public CacheStats getCacheStats() {
+        return verifiedTokens.stats();
+    }
+
+    // 缓存 key 使用 token 的摘要, 不在内存里保存 token 原文
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,128 @@
+package org.example.todo_list.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.exception.UserException;
+import org.example.todo_list.exception.errors.UserError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// BCrypt 计算放在独立的有界线程池里执行, 避免登录高峰占满 Tomcat 线程. 队列满时直接拒绝(429)
+@Slf4j
+@Component
+public class PasswordHasher {
+    private static final Pattern BCRYPT_PREFIX = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder encoder;
+    private final int strength;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder rejected = new LongAdder();
+    // 排队时间 (提交到开始计算) 和计算时间分开记录: 排队时间变长说明线程池不够, 计算时间取决于 bcrypt-strength
+    private final Timer waitTimer;
+    private final Timer durationTimer;
+
+    public PasswordHasher(BCryptPasswordEncoder encoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${password.bcrypt-strength}") int strength,
+                          @Value("${password.hash-pool.size}") int poolSize,
+                          @Value("${password.hash-pool.queue-capacity}") int queueCapacity,
+                          @Value("${password.hash-pool.timeout-millis}") long timeoutMillis) {
+        this.encoder = encoder;
+        this.strength = strength;
+        this.timeoutMillis = timeoutMillis;
+        this.waitTimer = Timer.builder("password.hash.wait")
+                .description("密码哈希在队列中等待的时间")
+                .register(meterRegistry);
+        this.durationTimer = Timer.builder("password.hash.duration")
+                .description("一次密码哈希的计算时间")
+                .register(meterRegistry);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    // 存储的哈希强度与当前配置不一致时, 登录成功后需要重新哈希
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    private <T> T submit(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                waitTimer.record(start - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    durationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("密码哈希队列已满, 拒绝请求 [队列长度:{}]", executor.getQueue().size());
+            throw new UserException(UserError.PASSWORD_HASH_BUSY);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 还没开始的任务不会再执行; 已经在计算的 bcrypt 不响应中断, 会算完后丢弃, 但请求线程不再等待
+            future.cancel(true);
+            rejected.increment();
+            log.warn("密码哈希超过 {} 毫秒未完成, 拒绝请求 [队列长度:{}]", timeoutMillis, executor.getQueue().size());
+            throw new UserException(UserError.PASSWORD_HASH_BUSY);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待密码哈希时被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("密码哈希失败", e.getCause());
+        }
+    }
+
+    // 以下用于监控和调整线程池大小
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.todo_list.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/*
+ * 头像文件的读取. 文件名是内容的哈希 (或旧的 UUID), 内容不会再变, 所以文件名本身就可以作为强 ETag.
+ * 小文件的内容放在按字节数限制大小的 Caffeine 缓存里, 由它的 W-TinyLFU 策略保留访问最多的头像.
+ */
+@Slf4j
+@Service
+public class AvatarService {
+    // 只接受服务端生成的文件名, 防止路径穿越
+    private static final Pattern FILENAME = Pattern.compile("[A-Za-z0-9_-]{1,128}(\\.[A-Za-z0-9]{1,10})?");
+
+    private final AvatarStore avatarStore;
+    private final long maxEntryBytes;
+    private final Cache<String, byte[]> hotAvatars;
+
+    // bytes 不为空时直接从内存写出, 否则从 path 读取
+    public record Avatar(String filename, Path path, long length, byte[] bytes, MediaType mediaType) {
+    }
+
+    public AvatarService(AvatarStore avatarStore,
+                         @Value("${file.avatar-cache.max-bytes}") long maxBytes,
+                         @Value("${file.avatar-cache.max-entry-bytes}") long maxEntryBytes) {
+        this.avatarStore = avatarStore;
+        this.maxEntryBytes = maxEntryBytes;
+        this.hotAvatars = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String filename, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+    }
+
+    public static String etag(String filename) {
+        return "\"" + filename + "\"";
+    }
+
+    // 条件请求 (If-None-Match) 用: 只查缓存和文件是否存在, 不读取内容
+    public boolean exists(String filename) {
+        if (!FILENAME.matcher(filename).matches()) {
+            return false;
+        }
+        return hotAvatars.getIfPresent(filename) != null || Files.exists(avatarStore.resolve(filename));
+    }
+
+    // 文件不存在或文件名不合法时返回 null
+    public Avatar find(String filename) {
+        if (!FILENAME.matcher(filename).matches()) {
+            return null;
+        }
+        MediaType mediaType = MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        byte[] cached = hotAvatars.getIfPresent(filename);
+        if (cached != null) {
+            return new Avatar(filename, null, cached.length, cached, mediaType);
+        }
+
+        Path path = avatarStore.resolve(filename);
+        try {
+            long length = Files.size(path);
+            if (length > maxEntryBytes) {
+                return new Avatar(filename, path, length, null, mediaType);
+            }
+            byte[] bytes = Files.readAllBytes(path);
+            hotAvatars.put(filename, bytes);
+            return new Avatar(filename, path, bytes.length, bytes, mediaType);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.error("读取头像失败 [{}]: {}", filename, e.getMessage());
+            return null;
+        }
+    }
+
+    // AvatarSweeper 删除头像文件后调用
+    public void evict(String filename) {
+        hotAvatars.invalidate(filename);
+    }
+
+    public CacheStats getCacheStats() {
+        return hotAvatars.stats();
+    }
+}
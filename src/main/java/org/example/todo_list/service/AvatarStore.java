@@ -0,0 +1,156 @@
+package org.example.todo_list.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.example.todo_list.exception.UserException;
+import org.example.todo_list.exception.errors.UserError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/*
+ * 按内容寻址的头像存储: 文件名是内容的 SHA-256 (缩略图再加 _尺寸 后缀), 相同的图片只存一份.
+ * 文件按哈希的前两个字节分到 ab/cd/ 两级子目录, 单个目录中的文件数保持很小. 访问地址仍然是 /images/文件名.
+ * 文件内容不会变, 不再被 User.avatarUrl 引用的文件由 AvatarSweeper 删除.
+ */
+@Slf4j
+@Component
+public class AvatarStore {
+    public static final String TEMP_PREFIX = ".upload-";
+    public static final String TEMP_SUFFIX = ".tmp";
+    // 分片上传中的文件, 清理任务不扫描以 . 开头的目录
+    public static final String PARTIAL_DIR = ".partial";
+
+    private static final Tika TIKA = new Tika();
+
+    private static final Pattern HASHED = Pattern.compile("[0-9a-f]{64}([_.].*)?");
+
+    private final Path root;
+
+    public AvatarStore(@Value("${file.upload-dir}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public Path getPartialDir() {
+        return root.resolve(PARTIAL_DIR);
+    }
+
+    // 按文件内容判断图片格式, 只接受 ImageIO 能解码的格式, 返回对应的扩展名
+    public static String detectImageExtension(InputStream content) throws IOException {
+        String mediaType = TIKA.detect(new BufferedInputStream(content));
+        return switch (mediaType) {
+            case "image/png" -> ".png";
+            case "image/jpeg" -> ".jpg";
+            case "image/gif" -> ".gif";
+            case "image/bmp" -> ".bmp";
+            default -> {
+                log.warn("不支持的头像格式: {}", mediaType);
+                throw new UserException(UserError.UNSUPPORTED_IMAGE);
+            }
+        };
+    }
+
+    // 文件名 -> 磁盘路径. 改为内容寻址之前上传的 UUID 文件仍在根目录下
+    public Path resolve(String filename) {
+        if (HASHED.matcher(filename).matches()) {
+            return root.resolve(filename.substring(0, 2)).resolve(filename.substring(2, 4)).resolve(filename);
+        }
+        return root.resolve(filename);
+    }
+
+    // 同一张原图及其所有缩略图共用的 key: 文件名中第一个 _ 或 . 之前的部分
+    public static String blobKey(String filename) {
+        int end = filename.length();
+        int underscore = filename.indexOf('_');
+        int dot = filename.indexOf('.');
+        if (underscore >= 0) {
+            end = underscore;
+        }
+        if (dot >= 0 && dot < end) {
+            end = dot;
+        }
+        return filename.substring(0, end);
+    }
+
+    // 写入内容并返回不带扩展名的哈希. 内容已存在时不重复写入
+    public String store(InputStream content, String extension) throws IOException {
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, TEMP_PREFIX, TEMP_SUFFIX);
+        try {
+            MessageDigest digest = sha256();
+            // 边写边计算哈希, 只读一遍上传内容
+            try (InputStream in = new DigestInputStream(content, digest);
+                 FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.transferFrom(Channels.newChannel(in), 0, Long.MAX_VALUE);
+                channel.force(true);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            adopt(temp, hash, extension);
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 把已知哈希的文件移入存储. 内容已存在时丢弃 file
+    public void adopt(Path file, String hash, String extension) throws IOException {
+        Path target = resolve(hash + extension);
+        if (touch(target)) {
+            Files.deleteIfExists(file);
+        } else {
+            Files.createDirectories(target.getParent());
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // 复用已存在的文件前调用: 刷新修改时间, 让清理任务的宽限期从这次引用重新开始计算. 文件不存在 (或刚被清理) 时返回 false
+    public boolean touch(Path file) throws IOException {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    // 写入生成的文件 (缩略图): 先写临时文件再原子移动
+    public Path tempFile() throws IOException {
+        Files.createDirectories(root);
+        return Files.createTempFile(root, TEMP_PREFIX, TEMP_SUFFIX);
+    }
+
+    public void moveInto(Path temp, String filename) throws IOException {
+        Path target = resolve(filename);
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.todo_list.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.repository.jpa.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// 定期删除不再被 User.avatarUrl 引用的头像文件, 磁盘占用与仍在使用的不同头像数量成正比
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AvatarSweeper {
+    private final UserRepository userRepository;
+    private final AvatarStore avatarStore;
+    private final AvatarService avatarService;
+
+    @Value("${file.access-path}")
+    private String accessPath;
+
+    @Value("${file.avatar.gc.grace-millis}")
+    private long graceMillis;
+
+    @Scheduled(initialDelayString = "${file.avatar.gc.interval-millis}",
+            fixedDelayString = "${file.avatar.gc.interval-millis}")
+    public void sweep() {
+        Path root = avatarStore.getRoot();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        // 先读引用再扫描文件: 查询之后写入或复用的文件修改时间都在宽限期内, 不会被误删
+        long cutoff = System.currentTimeMillis() - graceMillis;
+        Map<String, Boolean> referenced = loadReferences();
+
+        int deleted = 0;
+        long freedBytes = 0;
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root, 3)) {
+            // 以 . 开头的目录 (分片上传中的文件) 由各自的服务管理
+            files = walk.filter(Files::isRegularFile)
+                    .filter(file -> {
+                        Path relative = root.relativize(file);
+                        return relative.getNameCount() == 1 || !relative.getName(0).toString().startsWith(".");
+                    })
+                    .toList();
+        } catch (IOException e) {
+            log.error("扫描头像目录失败: {}", e.getMessage());
+            return;
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.lastModifiedTime().toMillis() > cutoff) {
+                    continue;
+                }
+                // 上传中断留下的临时文件直接删除
+                boolean temp = name.startsWith(AvatarStore.TEMP_PREFIX);
+                if (!temp && isReferenced(name, referenced)) {
+                    continue;
+                }
+                Files.deleteIfExists(file);
+                avatarService.evict(name);
+                deleted++;
+                freedBytes += attributes.size();
+            } catch (IOException e) {
+                log.warn("删除头像文件失败 [{}]: {}", name, e.getMessage());
+            }
+        }
+
+        if (deleted > 0) {
+            log.info("清理头像文件 [删除:{}, 释放:{} 字节, 仍在使用的头像:{}]", deleted, freedBytes, referenced.size());
+        }
+    }
+/* TODO 清理头像文件 --- ok
+开始 (定时任务)
+├─→ 查询所有用户的头像地址, 得到 (内容 key → 是否引用原图)
+├─→ 遍历 images 目录 (最多三层: ab/cd/文件)
+│   ├─→ 修改时间在宽限期内 → 保留
+│   ├─→ 临时文件 → 删除
+│   ├─→ key 没有被引用 → 删除
+│   ├─→ 缩略图, key 被引用 → 保留
+│   └─→ 原图, 只有用户头像仍指向原图 (缩略图未生成) 时保留
+└─→ 记录删除的文件数和释放的空间
+*/
+
+    // key -> 是否有用户直接引用原图. 引用任何一个尺寸的缩略图时, 同一张图片的所有缩略图都保留
+    private Map<String, Boolean> loadReferences() {
+        String prefix = accessPath.replace("/**", "") + "/";
+        Map<String, Boolean> referenced = new HashMap<>();
+        for (String url : userRepository.findAllAvatarUrls()) {
+            if (!url.startsWith(prefix)) {
+                continue;
+            }
+            String name = url.substring(prefix.length());
+            referenced.merge(AvatarStore.blobKey(name), !isVariant(name), Boolean::logicalOr);
+        }
+        return referenced;
+    }
+
+    private static boolean isReferenced(String name, Map<String, Boolean> referenced) {
+        Boolean originalReferenced = referenced.get(AvatarStore.blobKey(name));
+        return originalReferenced != null && (isVariant(name) || originalReferenced);
+    }
+
+    private static boolean isVariant(String name) {
+        return name.indexOf('_') >= 0;
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.todo_list.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.cache.UserSummaryCache;
+import org.example.todo_list.repository.jpa.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * 头像缩略图: 上传请求只负责把原图写入磁盘, 这里在有界线程池中生成固定尺寸的正方形缩略图 (文件名加 _尺寸 后缀),
+ * 全部生成后把用户头像指向默认尺寸. 队列满或生成失败时继续使用原图.
+ * 缩略图和原图一样按内容寻址, 同一张图片只生成一次; 不再引用的原图和缩略图由 AvatarSweeper 删除.
+ */
+@Slf4j
+@Service
+public class AvatarThumbnailService {
+    // 解码前先检查尺寸, 防止很小的文件解压出巨大的位图
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+
+    private final UserRepository userRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final AvatarStore avatarStore;
+    private final String urlPrefix;
+    private final int[] sizes;
+    private final int defaultSize;
+    private final ThreadPoolExecutor executor;
+
+    public AvatarThumbnailService(UserRepository userRepository,
+                                  UserSummaryCache userSummaryCache,
+                                  AvatarStore avatarStore,
+                                  @Value("${file.access-path}") String accessPath,
+                                  @Value("${file.avatar.sizes}") int[] sizes,
+                                  @Value("${file.avatar.default-size}") int defaultSize,
+                                  @Value("${file.avatar.pool.size}") int poolSize,
+                                  @Value("${file.avatar.pool.queue-capacity}") int queueCapacity) {
+        this.userRepository = userRepository;
+        this.userSummaryCache = userSummaryCache;
+        this.avatarStore = avatarStore;
+        this.urlPrefix = accessPath.replace("/**", "") + "/";
+        this.sizes = sizes.clone();
+        this.defaultSize = defaultSize;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "avatar-thumbnail-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    // 缩放图片是纯 CPU 计算, 不和请求线程抢占
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static String variantName(String baseName, int size, String extension) {
+        return baseName + "_" + size + extension;
+    }
+
+    // 提交后立即返回. baseName 是不带扩展名的原图文件名, extension 是原图的扩展名
+    public void submit(Long userId, String baseName, String extension) {
+        try {
+            executor.execute(() -> generate(userId, baseName, extension));
+        } catch (RejectedExecutionException e) {
+            log.warn("缩略图队列已满, 继续使用原图 [用户ID:{}, 文件:{}]", userId, baseName + extension);
+        }
+    }
+
+    private void generate(Long userId, String baseName, String extension) {
+        Path original = avatarStore.resolve(baseName + extension);
+        // jpeg 保持 jpeg, 其他格式 (含 gif, bmp) 统一编码为 png
+        String format = extension.equals(".jpg") ? "jpeg" : "png";
+        String variantExtension = format.equals("jpeg") ? ".jpg" : ".png";
+        try {
+            // 相同内容的图片之前已经生成过全部缩略图, 刷新它们的修改时间后直接复用
+            if (!touchVariants(baseName, variantExtension)) {
+                BufferedImage source = read(original);
+                if (source == null) {
+                    log.warn("无法解码头像, 继续使用原图 [{}]", original.getFileName());
+                    return;
+                }
+                BufferedImage square = cropSquare(source);
+                for (int size : sizes) {
+                    write(resize(square, Math.min(size, square.getWidth()), format), format,
+                            variantName(baseName, size, variantExtension));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 已经写出的缩略图没有引用, 由清理任务删除
+            log.error("生成缩略图失败, 继续使用原图 [{}]: {}", original.getFileName(), e.getMessage());
+            return;
+        }
+
+        String originalUrl = urlPrefix + baseName + extension;
+        String variantUrl = urlPrefix + variantName(baseName, defaultSize, variantExtension);
+        // 生成期间用户又上传了新头像时不覆盖
+        if (userRepository.replaceAvatarUrl(userId, originalUrl, variantUrl) > 0) {
+            userSummaryCache.invalidate(userId);
+        }
+    }
+/* TODO 生成头像缩略图 --- ok
+开始 (后台线程)
+├─→ 这张图片的缩略图都已存在 → 刷新缩略图的修改时间 → 跳过生成
+├─→ 读取原图尺寸, 超过像素上限或无法解码 → 保留原图 → 结束
+├─→ 居中裁剪为正方形
+├─→ 按配置的尺寸依次缩放并重新编码, 写入临时文件后原子替换 (不放大小图)
+│   └─→ 任一步失败 → 保留原图 → 结束
+└─→ 用户头像仍是这张原图?
+    ├─→ 否 (期间上传了新头像) → 结束
+    └─→ 是 → 头像地址改为默认尺寸 → 清除用户摘要缓存
+(原图不再被引用后由 AvatarSweeper 删除)
+*/
+
+    private static BufferedImage read(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_SOURCE_PIXELS) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage cropSquare(BufferedImage source) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        return source.getSubimage((source.getWidth() - side) / 2, (source.getHeight() - side) / 2, side, side);
+    }
+
+    // 每次最多缩小一半, 直接从大图缩到很小的尺寸会丢失细节
+    private static BufferedImage resize(BufferedImage source, int size, String format) {
+        int type = format.equals("jpeg") ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = source;
+        int currentSize = source.getWidth();
+        do {
+            currentSize = Math.max(currentSize / 2, size);
+            BufferedImage next = new BufferedImage(currentSize, currentSize, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, currentSize, currentSize, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (currentSize > size);
+        return current;
+    }
+
+    // 全部缩略图都存在时返回 true, 并刷新它们的修改时间, 避免头像指向它们之后被清理任务当作过期文件删除
+    private boolean touchVariants(String baseName, String variantExtension) throws IOException {
+        for (int size : sizes) {
+            if (!avatarStore.touch(avatarStore.resolve(variantName(baseName, size, variantExtension)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(BufferedImage image, String format, String filename) throws IOException {
+        Path temp = avatarStore.tempFile();
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("没有可用的编码器: " + format);
+            }
+            avatarStore.moveInto(temp, filename);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 以下用于监控
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,253 @@
+package org.example.todo_list.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.dto.request.InitiateUploadRequest;
+import org.example.todo_list.dto.response.UploadSessionResponse;
+import org.example.todo_list.exception.UserException;
+import org.example.todo_list.exception.errors.UserError;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/*
+ * 可断点续传的分片头像上传. 分片直接从请求体写到磁盘上的目标文件, 同时增量计算 SHA-256,
+ * 不经过 multipart 解析, 内存占用只有一个固定大小的缓冲区. 连接中断时已写入的部分保留, 客户端查询 offset 后继续.
+ * 每个用户同时只有一个上传会话, 会话保存在内存中, 空闲超时后删除.
+ */
+@Slf4j
+@Service
+public class AvatarUploadService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AvatarStore avatarStore;
+    private final UserService userService;
+    private final long maxBytes;
+    private final long idleTimeoutMillis;
+
+    // 用户 id -> 上传会话
+    private final Map<Long, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private static final class UploadSession {
+        final String uploadId;
+        final long size;
+        final String sha256;
+        final Path file;
+        final MessageDigest digest = AvatarStore.sha256();
+        // 同一会话的分片必须按顺序写入, 有写入进行中时拒绝其他请求
+        final ReentrantLock lock = new ReentrantLock();
+        long offset;
+        volatile long lastTouched = System.currentTimeMillis();
+
+        UploadSession(String uploadId, long size, String sha256, Path file) {
+            this.uploadId = uploadId;
+            this.size = size;
+            this.sha256 = sha256;
+            this.file = file;
+        }
+
+        UploadSessionResponse toResponse() {
+            return UploadSessionResponse.builder()
+                    .uploadId(uploadId)
+                    .offset(offset)
+                    .size(size)
+                    .build();
+        }
+    }
+
+    public AvatarUploadService(AvatarStore avatarStore,
+                               UserService userService,
+                               @Value("${file.avatar.upload.max-bytes}") long maxBytes,
+                               @Value("${file.avatar.upload.idle-timeout-millis}") long idleTimeoutMillis) {
+        this.avatarStore = avatarStore;
+        this.userService = userService;
+        this.maxBytes = maxBytes;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    // 会话只在内存中, 重启后之前的分片文件已经无法继续
+    @PostConstruct
+    void cleanPartialDir() throws IOException {
+        Path dir = avatarStore.getPartialDir();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public UploadSessionResponse initiate(Long userId, InitiateUploadRequest request) throws IOException {
+        if (request.size() > maxBytes) {
+            throw new UserException(UserError.UPLOAD_TOO_LARGE);
+        }
+        String uploadId = UUID.randomUUID().toString();
+        Path dir = avatarStore.getPartialDir();
+        Files.createDirectories(dir);
+        Path file = Files.createFile(dir.resolve(uploadId + ".part"));
+
+        UploadSession session = new UploadSession(uploadId, request.size(), request.sha256(), file);
+        // 新的上传替换同一用户之前未完成的上传
+        UploadSession previous = sessions.put(userId, session);
+        if (previous != null) {
+            discard(previous);
+        }
+        return session.toResponse();
+    }
+
+    public UploadSessionResponse status(Long userId, String uploadId) {
+        UploadSession session = find(userId, uploadId);
+        session.lastTouched = System.currentTimeMillis();
+        return session.toResponse();
+    }
+
+    public UploadSessionResponse writeChunk(Long userId, String uploadId, long offset, InputStream body) throws IOException {
+        UploadSession session = find(userId, uploadId);
+        if (!session.lock.tryLock()) {
+            throw new UserException(UserError.UPLOAD_OFFSET_MISMATCH);
+        }
+        try {
+            if (offset != session.offset) {
+                throw new UserException(UserError.UPLOAD_OFFSET_MISMATCH);
+            }
+            session.lastTouched = System.currentTimeMillis();
+
+            ReadableByteChannel in = Channels.newChannel(body);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try (FileChannel out = FileChannel.open(session.file, StandardOpenOption.WRITE)) {
+                out.position(session.offset);
+                try {
+                    while (in.read(buffer) >= 0) {
+                        buffer.flip();
+                        // 边写边检查, 超过声明的大小立即停止, 不会先把整个请求体读完
+                        if (session.offset + buffer.remaining() > session.size) {
+                            throw new UserException(UserError.UPLOAD_TOO_LARGE);
+                        }
+                        session.digest.update(buffer.array(), 0, buffer.limit());
+                        try {
+                            while (buffer.hasRemaining()) {
+                                session.offset += out.write(buffer);
+                            }
+                        } catch (IOException e) {
+                            // 写磁盘失败时摘要和文件内容已经对不上, 只能重新上传
+                            sessions.remove(userId, session);
+                            discard(session);
+                            throw e;
+                        }
+                        buffer.clear();
+                    }
+                } finally {
+                    // 连接中断时也保留已经写入的部分, 客户端可以从 offset 继续
+                    out.force(false);
+                }
+            }
+            return session.toResponse();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    public String complete(Long userId, String uploadId) throws IOException {
+        UploadSession session = find(userId, uploadId);
+        if (!session.lock.tryLock()) {
+            throw new UserException(UserError.UPLOAD_OFFSET_MISMATCH);
+        }
+        try {
+            if (session.offset != session.size) {
+                throw new UserException(UserError.UPLOAD_INCOMPLETE);
+            }
+            // digest() 取出摘要的同时重置了状态, 会话无法再次校验: 从这里开始无论成功失败都丢弃会话, 失败后客户端重新上传
+            try {
+                if (!HexFormat.of().formatHex(session.digest.digest()).equals(session.sha256)) {
+                    throw new UserException(UserError.UPLOAD_CHECKSUM_MISMATCH);
+                }
+
+                String extension;
+                try (InputStream is = Files.newInputStream(session.file)) {
+                    extension = AvatarStore.detectImageExtension(is);
+                }
+
+                // 文件已经写在磁盘上, 校验通过后直接移动进存储, 哈希就是文件名
+                avatarStore.adopt(session.file, session.sha256, extension);
+                return userService.updateAvatar(userId, session.sha256, extension);
+            } finally {
+                sessions.remove(userId, session);
+                discard(session);
+            }
+        } finally {
+            session.lock.unlock();
+        }
+    }
+/* TODO 分片上传头像 --- ok
+开始
+├─→ initiate: 检查声明的大小 → 创建空的分片文件 → 替换该用户之前的会话 → 返回 uploadId
+├─→ PUT 分片 (可重复多次)
+│   ├─→ 会话不存在或不属于该用户 → 抛出 UPLOAD_NOT_FOUND
+│   ├─→ offset 不等于已写入长度 / 有并发写入 → 抛出 UPLOAD_OFFSET_MISMATCH (客户端查询状态后重试)
+│   └─→ 从请求体读一块 → 超过声明大小则抛出 UPLOAD_TOO_LARGE → 更新摘要 → 写入文件 → 直到请求体结束
+├─→ 查询状态: 返回当前 offset
+└─→ complete
+    ├─→ 长度不足 → 抛出 UPLOAD_INCOMPLETE
+    ├─→ (取出摘要后会话不能重试, 以下任何结果都丢弃会话)
+    ├─→ SHA-256 不一致 → 抛出 UPLOAD_CHECKSUM_MISMATCH
+    ├─→ 内容不是支持的图片 → 抛出 UNSUPPORTED_IMAGE
+    ├─→ 读取文件, 移动进存储或更新头像失败 → 抛出异常
+    └─→ 移动到内容寻址存储 → 更新用户头像 → 返回访问路径
+*/
+
+    // 删除空闲超时的会话
+    @Scheduled(fixedDelayString = "${file.avatar.upload.idle-timeout-millis}")
+    public void expireIdleSessions() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        sessions.forEach((userId, session) -> {
+            if (session.lastTouched < cutoff && session.lock.tryLock()) {
+                try {
+                    if (sessions.remove(userId, session)) {
+                        discard(session);
+                    }
+                } finally {
+                    session.lock.unlock();
+                }
+            }
+        });
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    private UploadSession find(Long userId, String uploadId) {
+        UploadSession session = sessions.get(userId);
+        if (session == null || !session.uploadId.equals(uploadId)) {
+            throw new UserException(UserError.UPLOAD_NOT_FOUND);
+        }
+        return session;
+    }
+
+    private static void discard(UploadSession session) {
+        try {
+            Files.deleteIfExists(session.file);
+        } catch (IOException e) {
+            log.warn("删除分片上传文件失败 [{}]: {}", session.file.getFileName(), e.getMessage());
+        }
+    }
+}
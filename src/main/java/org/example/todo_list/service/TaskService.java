@@ -1,42 +1,100 @@
 package org.example.todo_list.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.cache.UserDirectory;
+import org.example.todo_list.dto.request.BatchGetTaskRequest;
+import org.example.todo_list.dto.request.BulkCreateTaskRequest;
 import org.example.todo_list.dto.request.CreateTaskRequest;
+import org.example.todo_list.dto.request.TaskQueryRequest;
 import org.example.todo_list.dto.request.UpdateTaskRequest;
+import org.example.todo_list.dto.response.BatchGetTaskResponse;
+import org.example.todo_list.dto.response.BulkCreateTaskResponse;
+import org.example.todo_list.dto.response.BulkTaskResult;
 import org.example.todo_list.dto.response.GetTaskResponse;
+import org.example.todo_list.dto.response.TaskPageResponse;
+import org.example.todo_list.dto.response.TaskSearchResponse;
 import org.example.todo_list.exception.TaskException;
-import org.example.todo_list.exception.errors.ListError;
 import org.example.todo_list.exception.errors.TaskError;
 import org.example.todo_list.model.Task;
-import org.example.todo_list.model.TodoList;
+import org.example.todo_list.reminder.ReminderScheduler;
+import org.example.todo_list.repository.ReadPathProperties;
+import org.example.todo_list.repository.jdbc.TaskBatchRepository;
+import org.example.todo_list.repository.jpa.TaskQuery;
+import org.example.todo_list.repository.jpa.TaskQueryRepository;
 import org.example.todo_list.repository.jpa.TaskRepository;
 import org.example.todo_list.repository.jpa.TodoListRepository;
 import org.example.todo_list.repository.jpa.UserRepository;
+import org.example.todo_list.repository.mybatis.TaskMapper;
+import org.example.todo_list.search.SearchResult;
+import org.example.todo_list.search.TaskSearchIndex;
+import org.example.todo_list.utils.CursorUtil;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TaskService {
+    private static final String SORT_NAME = "name";
+    private static final String ORDER_DESC = "desc";
+    private static final int DEFAULT_QUERY_LIMIT = 50;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    // 超出部分不参与搜索
+    private static final int MAX_SEARCH_QUERY_LENGTH = 100;
 
     private final TaskRepository taskRepository;
     private final TodoListRepository todoListRepository;
     private final TodoListService todoListService;
     private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
+    private final TaskBatchRepository taskBatchRepository;
+    private final Validator validator;
+    private final TaskMapper taskMapper;
+    private final ReadPathProperties readPath;
+    private final ReminderScheduler reminderScheduler;
+    private final TaskQueryRepository taskQueryRepository;
+    private final TaskSearchIndex taskSearchIndex;
 
     public void createTask(CreateTaskRequest createTaskRequest, Long userId) {
-        if (!todoListRepository.existsByUser_IdAndCategory(userId, createTaskRequest.category())) {
-            todoListService.create(createTaskRequest.category(), userId);
-        }
+        Long deadline = createTaskRequest.deadline();
+        validateDeadline(deadline);
 
-        TodoList todoList = todoListRepository.findTodoListByCategoryAndUserId(createTaskRequest.category(), userId)
-                .orElseThrow(() -> new TaskException(ListError.TASKLIST_NOT_FOUND));
+        Long listId = todoListService.resolveListId(userId, createTaskRequest.category());
 
-        Long deadline = createTaskRequest.deadline();
+        Task task = Task.builder()
+                .deadline(deadline)
+                .description(createTaskRequest.taskDescription())
+                .name(createTaskRequest.name())
+                .status(false)
+                .todoList(todoListRepository.getReferenceById(listId))
+                .build();
+
+        taskRepository.save(task);
+        userDirectory.taskSaved(task.getId(), listId);
+        reminderScheduler.deadlineChanged(task.getId(), deadline);
+        taskSearchIndex.taskSaved(userId, task.getId(), task.getName(), task.getDescription());
+    }
+
+    // 新建任务的截止日期必须是将来的时间
+    static void validateDeadline(Long deadline) {
         if (deadline != null) {
             LocalDateTime dueDate = LocalDateTime.ofInstant(
                     Instant.ofEpochSecond(deadline),
@@ -47,75 +105,296 @@ public class TaskService {
                 throw new TaskException(TaskError.INVALID_DUE_DATE);
             }
         }
+    }
 
-        Task task = Task.builder()
-                .deadline(deadline)
-                .description(createTaskRequest.taskDescription())
-                .name(createTaskRequest.name())
-                .status(false)
-                .todoList(todoList)
+    @Transactional
+    public BulkCreateTaskResponse bulkCreateTasks(BulkCreateTaskRequest request, Long userId) {
+        List<CreateTaskRequest> items = request.tasks();
+        BulkTaskResult[] results = new BulkTaskResult[items.size()];
+
+        // 1. 一次遍历完成校验, 记录合法的下标
+        List<Integer> validIndexes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            CreateTaskRequest item = items.get(i);
+            String error = validateBulkItem(item);
+            if (error != null) {
+                results[i] = BulkTaskResult.builder()
+                        .index(i)
+                        .code(HttpStatus.BAD_REQUEST.value())
+                        .message(error)
+                        .build();
+                continue;
+            }
+            try {
+                validateDeadline(item.deadline());
+                validIndexes.add(i);
+            } catch (TaskException e) {
+                results[i] = BulkTaskResult.builder()
+                        .index(i)
+                        .code(e.getErrorCode().getCode())
+                        .message(e.getMessage())
+                        .build();
+            }
+        }
+
+        // 2. 每个类别只解析(或新建)一次
+        Map<String, Long> listIds = new HashMap<>();
+        List<TaskBatchRepository.NewTask> newTasks = new ArrayList<>(validIndexes.size());
+        List<Long> ids;
+        try {
+            for (int i : validIndexes) {
+                CreateTaskRequest item = items.get(i);
+                Long listId = listIds.computeIfAbsent(item.category(), category -> todoListService.resolveListId(userId, category));
+                newTasks.add(new TaskBatchRepository.NewTask(
+                        item.name(), item.taskDescription(), item.deadline(), false, listId));
+            }
+
+            // 3. JDBC 批量插入
+            ids = taskBatchRepository.insertAll(newTasks);
+        } catch (RuntimeException e) {
+            // 事务会回滚, 本次新建的列表不能留在用户目录里
+            userDirectory.invalidateUser(userId);
+            throw e;
+        }
+
+        for (int n = 0; n < ids.size(); n++) {
+            int i = validIndexes.get(n);
+            userDirectory.taskSaved(ids.get(n), newTasks.get(n).todoListId());
+            reminderScheduler.deadlineChanged(ids.get(n), newTasks.get(n).deadline());
+            taskSearchIndex.taskSaved(userId, ids.get(n), newTasks.get(n).name(), newTasks.get(n).description());
+            results[i] = BulkTaskResult.builder()
+                    .index(i)
+                    .id(ids.get(n))
+                    .build();
+        }
+
+        return BulkCreateTaskResponse.builder()
+                .created(ids.size())
+                .failed(items.size() - ids.size())
+                .results(Arrays.asList(results))
                 .build();
+    }
+/* TODO 批量新建任务 --- ok
+开始
+├─ 逐个校验任务 (注解约束 + 截止日期), 不合法的记录错误, 不影响其他任务
+├─ 对合法任务的类别去重, 每个类别通过用户目录解析一次, 不存在则新建列表
+├─ 通过 JDBC batch 批量插入, 拿到自增 id
+└─ 按请求顺序返回每个任务的结果
+*/
 
-        taskRepository.save(task);
+    // 返回第一条约束错误信息, 没有错误时返回 null
+    private String validateBulkItem(CreateTaskRequest item) {
+        if (item == null) {
+            return "任务不能为空";
+        }
+        Set<ConstraintViolation<CreateTaskRequest>> violations = validator.validate(item);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
     }
+
 /*   TODO 新建任务: --- ok_
 你需要处理的业务异常:
 - 如果不存在对应的任务类别
 - 如果截至日期不是将来的时间
 开始
-├─ 根据 userId 检查用户下是否存在分类 TodoList
+├─ 检查截止日期 → 不是将来的时间 → 抛出 INVALID_DUE_DATE
+├─ 通过用户目录查找用户下分类对应的 TodoList
 │  ├─ 不存在 → 创建新TodoList
 │  └─ 存在 → 继续流程
-├─ 处理TodoList
-│  ├─ 根据 userId 找到对应的 TodoList → 构建Task对象
-│  │     ├─ 保存Task
-│  │     ├─ 加入TodoList
-│  └─ 未找到 → 抛出 任务列表不存在异常 → 结束
+├─ 构建Task对象 (TodoList 只使用引用, 不查询)
+│     ├─ 保存Task
+│     ├─ 写入用户目录
+│     ├─ 截止日期交给 ReminderScheduler
+│     └─ 更新搜索索引
 └─ 结束流程
 */
 
-    public GetTaskResponse getTask(Long id) {
-        if (!taskRepository.existsById(id)) {
+    public GetTaskResponse getTask(Long id, Long userId) {
+        // 一条语句同时完成查询和归属检查, 不属于该用户的任务视为不存在
+        GetTaskResponse task;
+        if (readPath.getTask() == ReadPathProperties.Impl.MYBATIS) {
+            task = taskMapper.findResponseByIdAndUserId(id, userId);
+        } else {
+            List<GetTaskResponse> tasks = taskRepository.findResponsesByIdInAndUserId(List.of(id), userId);
+            task = tasks.isEmpty() ? null : tasks.getFirst();
+        }
+        if (task == null) {
             throw new TaskException(TaskError.TASK_NOT_FOUND);
         }
+        return task;
+    }
+/* TODO 获取任务 --- ok
+开始
+├─ 按 read-path.task 调用 taskRepository 或 taskMapper 查询 (id, userId)
+│  ├─ 任务存在且属于该用户 → 直接返回 GetTaskResponse
+│  └─ 任务不存在或不属于该用户 → 抛出 TASK_NOT_FOUND → 进入异常处理流程
+*/
 
-        Task task = taskRepository.findById(id)
-                .orElseThrow(() -> new TaskException(TaskError.TASK_NOT_FOUND));
+    public BatchGetTaskResponse getTasks(BatchGetTaskRequest request, Long userId) {
+        // 去重并保留请求顺序
+        Set<Long> ids = new LinkedHashSet<>(request.ids());
+
+        List<GetTaskResponse> rows = readPath.getTasks() == ReadPathProperties.Impl.MYBATIS
+                ? taskMapper.findResponsesByIdInAndUserId(ids, userId)
+                : taskRepository.findResponsesByIdInAndUserId(ids, userId);
+        Map<Long, GetTaskResponse> found = rows.stream()
+                .collect(Collectors.toMap(GetTaskResponse::id, Function.identity()));
+
+        List<GetTaskResponse> tasks = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            GetTaskResponse task = found.get(id);
+            if (task != null) {
+                tasks.add(task);
+            } else {
+                missing.add(id);
+            }
+        }
 
-        return GetTaskResponse.builder()
-                .id(task.getId())
-                .description(task.getDescription())
-                .deadline(task.getDeadline())
-                .name(task.getName())
-                .status(task.isStatus())
+        return BatchGetTaskResponse.builder()
+                .tasks(tasks)
+                .missing(missing)
                 .build();
     }
-/* TODO 获取任务 --- ok
+/* TODO 批量获取任务 --- ok
 开始
-├─ 调用 taskRepository.findById(id)
-│  ├─ 任务存在 → 构建 GetTaskResponse 对象 → 返回响应
-│  └─ 任务不存在 → 抛出 TASK_NOT_FOUND → 进入异常处理流程
+├─ 对请求的 id 去重(保持顺序)
+├─ 一次 IN 查询取出属于当前用户的任务, 直接投影成 GetTaskResponse
+├─ 按请求顺序组装结果
+│  ├─ 找到 → 加入 tasks
+│  └─ 没找到 → 加入 missing (不会让整个请求失败)
+└─ 返回 BatchGetTaskResponse
 */
 
-    public void deleteTask(Long id) {
-//        if (!taskRepository.existsById(id)) {
-//            throw new TaskException(TaskError.TASK_NOT_FOUND);
-//        }
-        Task task = taskRepository.findById(id).orElseThrow(() -> new TaskException(TaskError.TASK_NOT_FOUND));
-        taskRepository.delete(task);
+    public TaskPageResponse queryTasks(TaskQueryRequest request, Long userId) {
+        boolean sortByName = SORT_NAME.equals(request.sort());
+        boolean descending = ORDER_DESC.equals(request.order());
+        String ordering = (sortByName ? SORT_NAME : "deadline") + (descending ? ",desc" : ",asc");
+        int pageSize = request.limit() == null ? DEFAULT_QUERY_LIMIT : request.limit();
+
+        TaskQuery.TaskQueryBuilder query = TaskQuery.builder()
+                .userId(userId)
+                .status(request.status())
+                .deadlineAfter(request.deadlineAfter())
+                .deadlineBefore(request.deadlineBefore())
+                .categories(request.category())
+                .namePrefix(request.namePrefix())
+                .sortByName(sortByName)
+                .descending(descending)
+                // 多取一条用来判断是否还有下一页
+                .limit(pageSize + 1);
+        if (request.cursor() != null && !request.cursor().isEmpty()) {
+            String[] keys = decodeQueryCursor(request.cursor(), ordering);
+            try {
+                query.afterKey(sortByName ? keys[1] : (keys[1].isEmpty() ? null : Long.valueOf(keys[1])))
+                        .afterId(Long.valueOf(keys[2]));
+            } catch (NumberFormatException e) {
+                throw new TaskException(TaskError.INVALID_CURSOR);
+            }
+        }
+
+        List<GetTaskResponse> tasks = taskQueryRepository.find(query.build());
+
+        String nextCursor = null;
+        if (tasks.size() > pageSize) {
+            tasks = tasks.subList(0, pageSize);
+            GetTaskResponse last = tasks.getLast();
+            String key = sortByName ? last.name() : (last.deadline() == null ? "" : String.valueOf(last.deadline()));
+            nextCursor = CursorUtil.encode(ordering, key, String.valueOf(last.id()));
+        }
+
+        return TaskPageResponse.builder()
+                .tasks(tasks)
+                .nextCursor(nextCursor)
+                .build();
+    }
+/* TODO 按条件查询任务 --- ok
+开始
+├─ 解析 sort/order, 没有传入时按截止时间升序, 每页 50 条
+├─ 有 cursor → 解码 (排序方式, 排序键, id), 排序方式与本次请求不一致 → 抛出 INVALID_CURSOR
+├─ TaskQueryRepository 一条语句查询 limit + 1 条
+│  └─ 多出一条 → 截断并用最后一条的 (排序键, id) 生成 nextCursor
+└─ 返回 TaskPageResponse
+*/
+
+    public TaskSearchResponse searchTasks(String query, Integer limit, Long userId) {
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : Math.clamp(limit, 1, MAX_SEARCH_LIMIT);
+        if (query == null || query.isBlank()) {
+            return TaskSearchResponse.builder()
+                    .tasks(List.of())
+                    .total(0)
+                    .build();
+        }
+        if (query.length() > MAX_SEARCH_QUERY_LENGTH) {
+            query = query.substring(0, MAX_SEARCH_QUERY_LENGTH);
+        }
+
+        SearchResult result = taskSearchIndex.search(userId, query, size);
+        List<GetTaskResponse> tasks = new ArrayList<>(result.taskIds().size());
+        if (!result.taskIds().isEmpty()) {
+            Map<Long, GetTaskResponse> found = taskRepository.findResponsesByIdInAndUserId(result.taskIds(), userId).stream()
+                    .collect(Collectors.toMap(GetTaskResponse::id, Function.identity()));
+            // 按得分顺序组装, 索引与数据库短暂不一致时跳过已不存在的任务
+            for (Long id : result.taskIds()) {
+                GetTaskResponse task = found.get(id);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+        }
+
+        return TaskSearchResponse.builder()
+                .tasks(tasks)
+                .total(result.total())
+                .build();
+    }
+/* TODO 搜索任务 --- ok
+开始
+├─ 关键词为空 → 返回空结果; 超过 100 个字符的部分截断
+├─ TaskSearchIndex 在用户的倒排索引中查找 (第一次搜索时建立索引), 得到按得分排序的任务 id
+├─ 一次 IN 查询取出这些任务的详细信息
+└─ 按得分顺序返回 TaskSearchResponse (tasks + 命中总数)
+*/
+
+    // 游标内容: 排序方式, 上一页最后一个任务的排序键 (deadline 为 null 时是空字符串), id
+    private static String[] decodeQueryCursor(String cursor, String ordering) {
+        String[] keys;
+        try {
+            keys = CursorUtil.decode(cursor, 3);
+        } catch (IllegalArgumentException e) {
+            throw new TaskException(TaskError.INVALID_CURSOR);
+        }
+        if (!ordering.equals(keys[0])) {
+            throw new TaskException(TaskError.INVALID_CURSOR);
+        }
+        return keys;
+    }
+
+    public void deleteTask(Long id, Long userId) {
+        if (!userDirectory.ownsTask(userId, id)) {
+            throw new TaskException(TaskError.TASK_NOT_FOUND);
+        }
+        taskRepository.deleteTaskById(id);
+        userDirectory.taskDeleted(id);
+        taskSearchIndex.taskDeleted(userId, id);
     }
 /* TODO 删除任务 --- ok
 开始
-├─ 检查任务是否存在
+├─ 通过用户目录检查任务是否存在且属于该用户
 │  ├─ 否 → 抛出 TASK_NOT_FOUND → 结束
-│  └─ 是 → 删除任务 → 结束
+│  └─ 是 → 删除任务 → 更新用户目录和搜索索引 → 结束
 */
 
     public void updateTask(Long id, UpdateTaskRequest newTask, Long userId) {
+        if (!userDirectory.ownsTask(userId, id)) {
+            throw new TaskException(TaskError.TASK_NOT_FOUND);
+        }
+
         Task task = taskRepository.findById(id)
                 .orElseThrow(() -> new TaskException(TaskError.TASK_NOT_FOUND));
 
-        task.setStatus(newTask.status());
+        if (newTask.status() != null) {
+            task.setStatus(newTask.status());
+        }
 
         if (newTask.deadline() != null) {
             LocalDateTime dueDate = LocalDateTime.ofInstant(
@@ -145,27 +424,26 @@ public class TaskService {
 //        }
         task.setDescription(newTask.description());
 
+        Long listId = userDirectory.listOfTask(id);
         if (newTask.category() != null && !newTask.category().isEmpty()) {
-            String category = newTask.category();
-
-            TodoList todoList = todoListRepository.findTodoListByCategoryAndUserId(category, userId)
-                    .orElseGet(() -> {
-                        TodoList newList = TodoList.builder()
-                                .category(category)
-                                .user(task.getTodoList().getUser())
-                                .build();
-                        return todoListRepository.save(newList);
-                            });
-            task.setTodoList(todoList);
+            listId = todoListService.resolveListId(userId, newTask.category());
+            task.setTodoList(todoListRepository.getReferenceById(listId));
         }
 
         taskRepository.save(task);
+        userDirectory.taskSaved(id, listId);
+        // 旧截止日期的提醒在到期时回查发现不一致后丢弃
+        if (newTask.deadline() != null) {
+            reminderScheduler.deadlineChanged(id, newTask.deadline());
+        }
+        taskSearchIndex.taskSaved(userId, id, task.getName(), task.getDescription());
     }
 /*TODO 更新任务
 - 如果有截至日期: 新截至日期超过了 2038 年, 新的截止日期不是将来的时间
 - 如果有类别: 如果没有对应的类别, 你需要新建一个对应的类别的 todoList
 - id 对应的 task 不存在
 开始更新任务
+├─ 通过用户目录检查任务是否属于该用户 → 否 → 抛出 TASK_NOT_FOUND
 ├─ 根据ID查找任务
 │  ├─ 存在 → 检查截止时间
 │  │  ├─ 无截止时间 → 修改完成状态
@@ -173,7 +451,7 @@ public class TaskService {
 │  │  │  │  ├─ 无类别 → 修改任务名/备注
 │  │  │  │  └─ 有类别 → 验证类别
 │  │  │  │     ├─ 类别不存在 → 创建新类别 (todoListService.create)
-│  │  │  │     └─ 类别存在 → 加入TodoList → 修改任务名/备注
+│  │  │  │     └─ 类别存在(用户目录) → 加入TodoList → 修改任务名/备注
 │  │  │  └─ 字段更新检查
 │  │  │     └─ 是 → 保存到数据库
 │  │  └─ 有截止时间 → 时间验证
@@ -2,144 +2,157 @@ package org.example.todo_list.service;
 
 
 import lombok.RequiredArgsConstructor;
+import org.example.todo_list.cache.UserDirectory;
+import org.example.todo_list.dto.response.GetListDetailResponse;
 import org.example.todo_list.dto.response.GetListResponse;
+import org.example.todo_list.dto.response.GetTaskResponse;
+import org.example.todo_list.dto.response.TaskPageResponse;
 import org.example.todo_list.exception.ListException;
 import org.example.todo_list.exception.errors.ListError;
-import org.example.todo_list.exception.errors.UserError;
-import org.example.todo_list.model.Task;
 import org.example.todo_list.model.TodoList;
-import org.example.todo_list.model.User;
+import org.example.todo_list.repository.ReadPathProperties;
+import org.example.todo_list.repository.jdbc.TodoListInsertRepository;
 import org.example.todo_list.repository.jpa.TaskRepository;
 import org.example.todo_list.repository.jpa.TodoListRepository;
-import org.example.todo_list.repository.jpa.UserRepository;
+import org.example.todo_list.repository.jpa.projection.ListTaskIdRow;
+import org.example.todo_list.repository.jpa.projection.ListTaskRow;
+import org.example.todo_list.repository.mybatis.TodoListMapper;
+import org.example.todo_list.repository.mybatis.projection.ListSummary;
+import org.example.todo_list.search.TaskSearchIndex;
 import org.example.todo_list.security.JwtUtils;
+import org.example.todo_list.utils.CursorUtil;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service//表示该类是一个Spring服务组件，用于业务逻辑处理。
 @RequiredArgsConstructor //自动生成包含所有final字段的构造函数
 public class TodoListService {
     private final TodoListRepository todoListRepository;
     private final TaskRepository taskRepository;
-    private final UserRepository userRepository;
+    private final TodoListInsertRepository todoListInsertRepository;
     private final JwtUtils jwtUtils;
+    private final UserDirectory userDirectory;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TodoListMapper todoListMapper;
+    private final ReadPathProperties readPath;
 
-    public void create(String category, Long userId) {
+    private static final int MAX_PAGE_SIZE = 500;
 
-        if (!userRepository.existsById(userId)) {
-            throw new ListException(UserError.USER_NOT_FOUND);
-        }
-
-        if (todoListRepository.existsByUser_IdAndCategory(userId, category)) {
+    // 返回新建列表的 id
+    public Long create(String category, Long userId) {
+        Long listId = createIfAbsent(category, userId);
+        if (listId == null) {
             throw new ListException(ListError.TASKLIST_ALREADY_EXIST);
         }
+        return listId;
+    }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ListException(UserError.USER_NOT_FOUND));
-
-        TodoList newList = new TodoList();
-        newList.setCategory(category);
-        newList.setUser(user);
-
-        user.getTodoLists().add(newList);
+    // 新建列表, 类别已存在时返回 null. 由 (user_id, category) 唯一索引保证不重复, 一条语句, 不需要预先检查
+    public Long createIfAbsent(String category, Long userId) {
+        validateCategory(category);
+        Long listId = todoListInsertRepository.insertIfAbsent(userId, category);
+        if (listId != null) {
+            userDirectory.listCreated(userId, category, listId);
+        }
+        return listId;
+    }
 
-        todoListRepository.save(newList);
+    // 通过用户目录找到类别对应的列表, 不存在时新建. 目录命中时不查询数据库
+    public Long resolveListId(Long userId, String category) {
+        Long listId = userDirectory.findListId(userId, category);
+        if (listId != null) {
+            return listId;
+        }
+        listId = createIfAbsent(category, userId);
+        if (listId == null) {
+            // 目录加载之后被其他请求创建
+            listId = todoListInsertRepository.findId(userId, category);
+            if (listId == null) {
+                // 又被删除了
+                throw new ListException(ListError.TASKLIST_NOT_FOUND);
+            }
+            userDirectory.listCreated(userId, category, listId);
+        }
+        return listId;
     }
+
  /* TODO 新建任务列表 --- ok
 开始创建任务列表
 │
-├─→ 检查用户是否存在
-│   ├─→ 存在 → 继续流程
-│   └─→ 不存在 → 抛出 USER_NULL
-│
-├─→ 用户专属 category 检查
-│   ├─→ 已有该 category → 抛出 LIST_ALREADY_EXISTS
-│   └─→ 无重复 → 继续流程
+├─→ 类别为空或超过 255 个字符 → 抛出 INVALID_CATEGORY
+├─→ 插入 (category, user_id)
+│   ├─→ 唯一索引冲突 → 抛出 LIST_ALREADY_EXISTS
+│   └─→ 插入成功 → 继续流程
 │
-└─→ [操作] 列表创建
-    ├─→ 构建新 TodoList 实体
-    ├─→ 持久化到数据库
-    └─→ 建立用户-列表双向关联
+└─→ 写入用户目录, 返回列表 id
+
+按类别解析列表 (新建/修改任务)
+├─→ 用户目录命中 → 返回
+├─→ 插入成功 → 返回新 id
+└─→ 已被并发请求创建 → 锁定读取已有的 id → 写入用户目录 → 返回
 */
 
     public void delete(Long id, Long userId) {
-        if (!todoListRepository.existsById(id)) {
+        if (!userDirectory.ownsList(userId, id)) {
             throw new ListException(ListError.TASKLIST_NOT_FOUND);
         }
 
-        if (!todoListRepository.existsTodoListByUserId(userId)) {
-            throw new ListException(UserError.USER_NOT_FOUND);
-        }
-
         taskRepository.deleteTasksByTodoListId(id);
 
         todoListRepository.deleteAllByIdAndUser_Id(id, userId);
 
+        userDirectory.listDeleted(userId, id);
+        taskSearchIndex.invalidateUser(userId);
     }
 /* TODO 删除 todolist --- ok
 开始删除TodoList
-├─→ 根据id查找TodoList
-│   ├─→ 存在 → 根据 userId 查找用户
-│   │        ├─→ 用户存在
-│   │        │       ├─→ 解除用户与TodoList的关联
-│   │        │       └─→ 删除TodoList
-│   │        └─→ 用户不存在 → 抛出 USER_NULL→ 结束
-│   └─→ 不存在 → 抛出 LIST_NOT_EXIST → 结束
+├─→ 通过用户目录检查列表是否属于该用户
+│   ├─→ 是 → 删除列表中的任务 → 删除TodoList → 更新用户目录 → 丢弃用户的搜索索引
+│   └─→ 否(不存在或属于其他用户) → 抛出 LIST_NOT_EXIST → 结束
 */
 
     public void changeListCategory(Long id, String newCategory, Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new ListException(UserError.USER_NOT_FOUND);
+        validateCategory(newCategory);
+        if (!userDirectory.ownsList(userId, id)) {
+            throw new ListException(ListError.TASKLIST_NOT_FOUND);
         }
-        if (todoListRepository.existsByUser_IdAndCategory(userId, newCategory)) {
+        if (userDirectory.findListId(userId, newCategory) != null) {
             throw new ListException(ListError.TASKLIST_ALREADY_EXIST);
         }
 
-        TodoList todoList = todoListRepository.findById(id).orElseThrow(() -> new ListException(ListError.TASKLIST_NOT_FOUND));
-
-        todoList.setCategory(newCategory);
-        todoListRepository.save(todoList);
+        try {
+            todoListRepository.updateCategory(id, newCategory);
+        } catch (DataIntegrityViolationException e) {
+            // 检查之后被并发请求占用了这个类别
+            throw new ListException(ListError.TASKLIST_ALREADY_EXIST);
+        }
+        userDirectory.listCategoryChanged(userId, id, newCategory);
     }
 /*TODO 更新 todolist 的类别 --- ok_
 开始更新类别
-├─→ 根据userId查找用户
-│   ├─→ 用户不存在 → 抛出 USER_NULL 异常 → 结束
-│   └─→ 用户存在 → 继续流程
+├─→ 通过用户目录检查列表是否属于该用户
+│   ├─→ 否(不存在或属于其他用户) → 抛出 LIST_NOT_EXIST 异常 → 结束
+│   └─→ 是 → 继续流程
 │           └─→ 检查该用户下是否存在newCategory的任务列表
 │               ├─→ 存在 → 抛出 LIST_ALREADY_EXISTS 异常 → 结束
-│               └─→ 不存在 → 继续流程
-│                       └─→ 根据id查找目标TodoList
-│                           ├─→ 列表不存在 → 抛出 LIST_NOT_EXIST 异常 → 结束
-│                           └─→ 列表存在 → 执行更新
-│                                   └─→ 设置新类别并保存 → 结束
+│               └─→ 不存在 → 一条 update 语句更新类别 (唯一索引冲突 → LIST_ALREADY_EXISTS) → 更新用户目录 → 结束
 */
 
     public List<GetListResponse> getAllLists(Long userId) {
-        List<TodoList> userTodoLists = todoListRepository.findByUser_Id(userId);
-
-        List<GetListResponse> res = null;
-
-        return userTodoLists.stream()
-                .map(todoList -> {
-
-                    List<Long> collect = todoList.getTasks().stream()
-                            .map(Task::getId)
-                            .collect(Collectors.toList());
-
-                    return new GetListResponse(
-                            todoList.getId(),
-                            todoList.getCategory(),
-                            collect
-                    );
-                })
-                .collect(Collectors.toList());
+        if (readPath.getLists() == ReadPathProperties.Impl.MYBATIS) {
+            return todoListMapper.findSummariesByUserId(userId).stream().map(ListSummary::toResponse).toList();
+        }
+        return groupListTaskIdRows(todoListRepository.findListTaskIdRowsByUserId(userId));
     }
 /*TODO 获取所有 todolist --- ok
 该方法根据用户ID获取所有待办事项列表，并构建包含任务ID、列表ID和分类的响应数据返回。
 开始获取待办列表
-├─→ 调用 findTodoListByUserId 获取原始数据
+├─→ read-path.lists 为 mybatis → TodoListMapper 的嵌套 resultMap 直接分组 → 返回
+├─→ 调用 findListTaskIdRowsByUserId 一次取出 (列表id, 类别, 任务id) 行
 ├─→ 初始化空结果列表 res
 ├─→ 遍历每个 TodoList 条目
 │   ├─→ 转换为 GetListResponse 对象（DTO模式）
@@ -148,23 +161,16 @@ public class TodoListService {
 └─→ 返回结果列表 res（响应标准化）
      */
 
-    public GetListResponse getListById(Long id) {
-        if (!todoListRepository.existsById(id)) {
+    public GetListResponse getListById(Long id, Long userId) {
+        List<GetListResponse> lists = groupListTaskIdRows(todoListRepository.findListTaskIdRowsByIdAndUserId(id, userId));
+        if (lists.isEmpty()) {
             throw new ListException(ListError.TASKLIST_NOT_FOUND);
         }
-        TodoList todoList = todoListRepository.findById(id).orElseThrow(() -> new ListException(ListError.TASKLIST_NOT_FOUND));
-
-        List<Long> taskIds = taskRepository.findIdsByTodoList_Id(id);
-
-        return GetListResponse.builder()
-                .id(id)
-                .tasks(taskIds)
-                .category(todoList.getCategory())
-                .build();
+        return lists.getFirst();
     }
 /*TODO 根据 id 获取 todolist --- ok_
 开始
-└─ 通过 id 查找 todolist
+└─ 通过 (id, userId) 查找 todolist, 不属于该用户的列表视为不存在
     └─ 查找到的 todolist 是否存在
         └─ 是
             ├─ 查询关联的任务 id 列表
@@ -172,5 +178,140 @@ public class TodoListService {
         └─ 否
            └─ 抛出 LIST_NOT_FOUND 异常
  */
-}
 
+    // 每个列表最多返回 taskLimit 个任务, 响应大小与任务总数无关; 更多的任务通过 nextCursor 分页获取
+    public List<GetListDetailResponse> getAllListsWithTasks(Long userId, int taskLimit) {
+        int limit = Math.clamp(taskLimit, 1, MAX_PAGE_SIZE);
+        // 每个列表多取一个任务用来判断是否还有更多
+        if (readPath.getLists() == ReadPathProperties.Impl.MYBATIS) {
+            return todoListMapper.findDetailsByUserId(userId, limit + 1).stream()
+                    .map(list -> detail(list.getId(), list.getCategory(), list.getTasks(), limit))
+                    .toList();
+        }
+        return groupListTaskRows(todoListRepository.findListTaskRowsByUserId(userId, limit + 1), limit);
+    }
+
+    public GetListDetailResponse getListWithTasksById(Long id, Long userId, int taskLimit) {
+        int limit = Math.clamp(taskLimit, 1, MAX_PAGE_SIZE);
+        List<GetListDetailResponse> lists = groupListTaskRows(
+                todoListRepository.findListTaskRowsByIdAndUserId(id, userId, PageRequest.of(0, limit + 1)), limit);
+        if (lists.isEmpty()) {
+            throw new ListException(ListError.TASKLIST_NOT_FOUND);
+        }
+        return lists.getFirst();
+    }
+/*TODO 获取 todolist 及其任务 (expand=tasks) --- ok
+开始
+├─ taskLimit 限制在 [1, 500]
+├─ 一条查询取出 (列表, 任务) 行, 按列表 id 和任务 id 排序, 每个列表最多 taskLimit + 1 个任务
+│  ├─ 全部列表: 窗口函数 row_number() 按列表编号, 在数据库中截断
+│  └─ 单个列表: limit taskLimit + 1
+├─ 顺序扫描所有行
+│  ├─ 列表 id 变化 → 开始一个新的列表
+│  └─ 任务 id 不为空 → 加入当前列表的 tasks
+├─ 某个列表多出一个任务 → 去掉多出的任务, nextCursor 为最后一个任务 id 的游标 (用于 GET /list/{id}/tasks)
+└─ 返回结果; 按 id 查询时同时匹配 userId, 没有任何行 (不存在或属于其他用户) → 抛出 LIST_NOT_FOUND
+*/
+
+    public TaskPageResponse getTaskPage(Long listId, Long userId, int limit, String cursor) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        long afterId = cursor == null || cursor.isEmpty() ? 0L : decodeCursor(cursor);
+
+        // 多取一条用来判断是否还有下一页
+        List<GetTaskResponse> tasks = taskRepository.findPageByTodoListId(
+                listId, userId, afterId, PageRequest.of(0, pageSize + 1));
+
+        // 结果为空时才需要区分 "列表不存在" 和 "列表没有任务"
+        if (tasks.isEmpty() && !todoListRepository.existsByIdAndUser_Id(listId, userId)) {
+            throw new ListException(ListError.TASKLIST_NOT_FOUND);
+        }
+
+        String nextCursor = null;
+        if (tasks.size() > pageSize) {
+            tasks = tasks.subList(0, pageSize);
+            nextCursor = CursorUtil.encode(String.valueOf(tasks.getLast().id()));
+        }
+
+        return TaskPageResponse.builder()
+                .tasks(tasks)
+                .nextCursor(nextCursor)
+                .build();
+    }
+/*TODO 分页获取 todolist 中的任务 --- ok
+开始
+├─ 解析 cursor (上一页最后一个任务的 id), 没有 cursor 表示第一页
+├─ 查询 id > cursor 的 limit + 1 个任务 (走 (todo_list_id, id) 索引)
+│  ├─ 结果为空且列表不属于该用户 → 抛出 LIST_NOT_FOUND
+│  └─ 多出一条 → 截断并生成 nextCursor
+└─ 返回 TaskPageResponse
+*/
+
+    // 路径参数和请求参数中的类别不经过 DTO 校验, 在写入数据库前统一检查
+    public static void validateCategory(String category) {
+        if (category == null || category.isBlank() || category.length() > TodoList.MAX_CATEGORY_LENGTH) {
+            throw new ListException(ListError.INVALID_CATEGORY);
+        }
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(CursorUtil.decode(cursor, 1)[0]);
+        } catch (IllegalArgumentException e) {
+            throw new ListException(ListError.INVALID_CURSOR);
+        }
+    }
+
+    // 行已按列表 id 排序, 单次扫描即可分组, 不需要额外的 Map
+    private static List<GetListResponse> groupListTaskIdRows(List<ListTaskIdRow> rows) {
+        List<GetListResponse> res = new ArrayList<>();
+        Long currentId = null;
+        List<Long> currentTasks = null;
+
+        for (ListTaskIdRow row : rows) {
+            if (!row.listId().equals(currentId)) {
+                currentId = row.listId();
+                currentTasks = new ArrayList<>();
+                res.add(new GetListResponse(row.listId(), row.category(), currentTasks));
+            }
+            if (row.taskId() != null) {
+                currentTasks.add(row.taskId());
+            }
+        }
+        return res;
+    }
+
+    private static List<GetListDetailResponse> groupListTaskRows(List<ListTaskRow> rows, int limit) {
+        List<GetListDetailResponse> res = new ArrayList<>();
+        Long currentId = null;
+        List<GetTaskResponse> currentTasks = null;
+
+        for (ListTaskRow row : rows) {
+            if (!row.listId().equals(currentId)) {
+                currentId = row.listId();
+                currentTasks = new ArrayList<>();
+                res.add(new GetListDetailResponse(row.listId(), row.category(), currentTasks, null));
+            }
+            if (row.taskId() != null) {
+                currentTasks.add(GetTaskResponse.builder()
+                        .id(row.taskId())
+                        .deadline(row.deadline())
+                        .name(row.name())
+                        .description(row.description())
+                        .status(Boolean.TRUE.equals(row.status()))
+                        .build());
+            }
+        }
+        res.replaceAll(list -> detail(list.id(), list.category(), list.tasks(), limit));
+        return res;
+    }
+
+    // 查询时每个列表多取了一个任务: 多出时去掉, 并返回继续分页的游标 (与 getTaskPage 的游标相同)
+    private static GetListDetailResponse detail(Long id, String category, List<GetTaskResponse> tasks, int limit) {
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            nextCursor = CursorUtil.encode(String.valueOf(tasks.getLast().id()));
+        }
+        return new GetListDetailResponse(id, category, tasks, nextCursor);
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.todo_list.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.cache.UserDirectory;
+import org.example.todo_list.dto.response.ImportResponse;
+import org.example.todo_list.dto.transfer.TransferRecord;
+import org.example.todo_list.exception.TaskException;
+import org.example.todo_list.exception.errors.TaskError;
+import org.example.todo_list.model.TodoList;
+import org.example.todo_list.reminder.ReminderScheduler;
+import org.example.todo_list.repository.jdbc.TaskBatchRepository;
+import org.example.todo_list.repository.jdbc.TaskBatchRepository.NewTask;
+import org.example.todo_list.repository.jpa.TaskExportRepository;
+import org.example.todo_list.repository.jpa.TodoListRepository;
+import org.example.todo_list.repository.jpa.projection.ListCategoryRow;
+import org.example.todo_list.search.TaskSearchIndex;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// 以 NDJSON (每行一个 JSON) 导入导出用户的全部列表和任务, 边读边写, 内存占用与数据量无关
+@Slf4j
+@Service
+public class TransferService {
+    // 导入时每攒够这么多任务提交一次事务
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    private final TodoListRepository todoListRepository;
+    private final TaskExportRepository taskExportRepository;
+    private final TaskBatchRepository taskBatchRepository;
+    private final TodoListService todoListService;
+    private final UserDirectory userDirectory;
+    private final ReminderScheduler reminderScheduler;
+    private final TaskSearchIndex taskSearchIndex;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+
+    public TransferService(TodoListRepository todoListRepository,
+                           TaskExportRepository taskExportRepository,
+                           TaskBatchRepository taskBatchRepository,
+                           TodoListService todoListService,
+                           UserDirectory userDirectory,
+                           ReminderScheduler reminderScheduler,
+                           TaskSearchIndex taskSearchIndex,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager) {
+        this.todoListRepository = todoListRepository;
+        this.taskExportRepository = taskExportRepository;
+        this.taskBatchRepository = taskBatchRepository;
+        this.todoListService = todoListService;
+        this.userDirectory = userDirectory;
+        this.reminderScheduler = reminderScheduler;
+        this.taskSearchIndex = taskSearchIndex;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public void exportTo(Long userId, OutputStream out) throws IOException {
+        // 每行写完不 flush, 由输出缓冲区写满后再发送
+        ObjectWriter writer = objectMapper.writerFor(TransferRecord.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+
+        try (SequenceWriter lines = writer.writeValues(out)) {
+            // 空列表也要导出, 所以先单独写出所有类别
+            for (ListCategoryRow row : todoListRepository.findCategoriesByUserId(userId)) {
+                lines.write(TransferRecord.list(row.category()));
+            }
+
+            // Stream 只在事务内有效, 整个导出期间占用一个只读事务
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<TransferRecord> tasks = taskExportRepository.streamTransferRecordsByUserId(userId)) {
+                    tasks.forEach(task -> {
+                        try {
+                            lines.write(task);
+                        } catch (IOException e) {
+                            throw new ExportAbortedException(e);
+                        }
+                    });
+                }
+            });
+            out.write('\n');
+        } catch (ExportAbortedException e) {
+            // 通常是客户端断开了连接
+            throw e.getCause();
+        }
+    }
+/* TODO 导出用户数据 --- ok
+开始导出
+├─→ 写出用户的所有类别 (type=list)
+├─→ 在只读事务中流式查询任务 (MySQL 逐行读取)
+│   └─→ 逐行投影为 TransferRecord 写入响应流 (type=task)
+└─→ 关闭结果集, 结束
+*/
+
+    public ImportResponse importFrom(Long userId, InputStream in) throws IOException {
+        long lists = 0;
+        long tasks = 0;
+        long skipped = 0;
+        // 只缓存本次导入用到的类别, 条目数等于类别数
+        Map<String, Long> listIds = new HashMap<>();
+        List<NewTask> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+
+        try (MappingIterator<TransferRecord> records = objectMapper.readerFor(TransferRecord.class).readValues(in)) {
+            while (records.hasNextValue()) {
+                TransferRecord record = records.nextValue();
+                if (isBlank(record.category()) || record.category().length() > TodoList.MAX_CATEGORY_LENGTH
+                        || (!TransferRecord.TYPE_LIST.equals(record.type()) && !TransferRecord.TYPE_TASK.equals(record.type()))
+                        || (TransferRecord.TYPE_TASK.equals(record.type()) && isBlank(record.name()))) {
+                    skipped++;
+                    continue;
+                }
+
+                Long listId = listIds.get(record.category());
+                if (listId == null) {
+                    listId = userDirectory.findListId(userId, record.category());
+                    if (listId == null) {
+                        // 并发导入同一个类别时只有一个会新建, 其余使用已有的列表
+                        listId = todoListService.createIfAbsent(record.category(), userId);
+                        if (listId != null) {
+                            lists++;
+                        } else {
+                            listId = todoListService.resolveListId(userId, record.category());
+                        }
+                    }
+                    listIds.put(record.category(), listId);
+                }
+
+                if (TransferRecord.TYPE_TASK.equals(record.type())) {
+                    batch.add(new NewTask(record.name(), record.description(), record.deadline(),
+                            Boolean.TRUE.equals(record.status()), listId));
+                    if (batch.size() == IMPORT_BATCH_SIZE) {
+                        tasks += flush(batch);
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // 之前已提交的批次保留, 返回出错前的进度方便排查
+            log.warn("导入数据格式错误 [用户:{}, 已导入任务:{}]", userId, tasks + batch.size(), e);
+            flush(batch);
+            throw new TaskException(TaskError.INVALID_IMPORT_DATA);
+        } finally {
+            // 导入的任务不逐个写入搜索索引, 下次搜索时重建
+            taskSearchIndex.invalidateUser(userId);
+        }
+        tasks += flush(batch);
+        taskSearchIndex.invalidateUser(userId);
+
+        return ImportResponse.builder()
+                .lists(lists)
+                .tasks(tasks)
+                .skipped(skipped)
+                .build();
+    }
+/* TODO 导入用户数据 --- ok
+开始导入
+├─→ 逐行解析 NDJSON, 不把整个文件读入内存
+│   ├─→ 缺少类别/任务名, 类别过长或类型未知 → 跳过并计数
+│   ├─→ 类别对应的列表不存在 → 新建列表
+│   └─→ 任务加入当前批次, 攒满 1000 个 → 单独一个事务批量插入
+├─→ 遇到无法解析的行 → 提交已解析的批次 → 抛出 INVALID_IMPORT_DATA
+├─→ 提交最后一批, 丢弃用户的搜索索引
+└─→ 返回新建列表数, 导入任务数和跳过行数
+*/
+
+    // 导入的任务 id 不写入用户目录, 避免一次导入把目录挤满; 之后访问时再按需加载
+    private int flush(List<NewTask> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = writeTransaction.execute(status -> taskBatchRepository.insertAll(batch));
+        for (int i = 0; i < batch.size(); i++) {
+            reminderScheduler.deadlineChanged(ids.get(i), batch.get(i).deadline());
+        }
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // 在 forEach 中传递写出时的 IOException
+    private static class ExportAbortedException extends RuntimeException {
+        ExportAbortedException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -2,24 +2,23 @@ package org.example.todo_list.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.todo_list.cache.UserSummaryCache;
 import org.example.todo_list.dto.request.LoginRegisterRequest;
 import org.example.todo_list.dto.request.UpdateUserRequest;
+import org.example.todo_list.dto.response.UserResponse;
 import org.example.todo_list.exception.UserException;
 import org.example.todo_list.exception.errors.UserError;
 import org.example.todo_list.model.User;
+import org.example.todo_list.repository.ReadPathProperties;
 import org.example.todo_list.repository.jpa.UserRepository;
+import org.example.todo_list.repository.mybatis.UserMapper;
+import org.example.todo_list.security.PasswordHasher;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
 
 @Slf4j
 @Service
@@ -27,14 +26,16 @@ import java.util.UUID;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final UserSummaryCache userSummaryCache;
+    private final AvatarThumbnailService avatarThumbnailService;
+    private final AvatarStore avatarStore;
+    private final UserMapper userMapper;
+    private final ReadPathProperties readPath;
 
     @Value("${file.access-path}")
     private String accessPath;
 
-    @Value("${file.upload-dir}")//将图片保存在当前项目路径下
-    private String uploadDir;
-
     public void register(LoginRegisterRequest request) {
         // 如果注册用户名使用非法字符
         String username = request.username();
@@ -43,12 +44,12 @@ public class UserService {
             log.warn("非法用户名是: {}", request.username());
             throw new UserException(UserError.INVALID_USERNAME); //抛出1001, "非法用户名"异常处理
         }
-        // 如果存在相同的用户名
-        if (userRepository.existsByUsername(request.username())) {
+        // 如果存在相同的用户名 (缓存命中时不需要查询数据库)
+        if (userSummaryCache.getIfPresent(username) != null || userRepository.existsByUsername(username)) {
             throw new UserException(UserError.DUPLICATE_USERNAME); //抛出异常处理
         }
         // md5 加密密码
-        String encodedPassword = passwordEncoder.encode(request.password());
+        String encodedPassword = passwordHasher.encode(request.password());
         User user = User.builder()
                 .username(request.username())
                 .password(encodedPassword)
@@ -57,19 +58,44 @@ public class UserService {
     }
 
 
-    public boolean login(LoginRegisterRequest request) {
+    // 只查询一次数据库, 直接返回登录成功的用户
+    public User login(LoginRegisterRequest request) {
         User user = userRepository.findByUsername(request.username());
-
-        if (!userRepository.existsByUsername(user.getUsername())) {
+        if (user == null) {
             throw new UserException(UserError.USER_NOT_FOUND);
         }
 
-
-        if (passwordEncoder.matches(request.password(), user.getPassword())) {
-            return true;
-        } else {
+        if (!passwordHasher.matches(request.password(), user.getPassword())) {
             throw new UserException(UserError.AUTHENTICATION_FAILURE);
         }
+
+        rehashIfNeeded(user, request.password());
+        userSummaryCache.put(user);
+        return user;
+    }
+
+    public UserResponse getUserSummary(Long id) {
+        UserResponse summary = userSummaryCache.get(id, userId -> readPath.getUser() == ReadPathProperties.Impl.MYBATIS
+                ? userMapper.findSummaryById(userId)
+                : userRepository.findById(userId).map(UserSummaryCache::toSummary).orElse(null));
+        if (summary == null) {
+            throw new UserException(UserError.USER_NOT_FOUND);
+        }
+        return summary;
+    }
+
+    // BCrypt 强度配置变化后, 借登录时拿到的明文密码透明地重新哈希
+    private void rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordHasher.needsRehash(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordHasher.encode(rawPassword));
+            userRepository.save(user);
+        } catch (UserException e) {
+            // 哈希线程池繁忙时跳过, 下次登录再处理, 不影响本次登录
+            log.warn("重新哈希密码被跳过 [用户ID:{}]: {}", user.getId(), e.getMessage());
+        }
     }
 /*TODO 登录----ok
 你需要处理
@@ -83,92 +109,67 @@ public class UserService {
 │   │   └─→ 是 → 验证密码是否正确
 │   │       ├─→ 密码是否匹配?
 │   │       │   ├─→ 否 → 抛出密码错误异常（PASSWORD_ERROR）
-│   │       │   └─→ 是 → 返回登录成功
-└───└───────└──流程结束返回ture
+│   │       │   └─→ 是 → 写入用户摘要缓存 → 返回登录的用户
+└───└───────└──流程结束返回 user
 */
 
     public String storeFile(Long userId, MultipartFile file) throws IOException {
-        String extension = getString(file);
-
-        String newFilename = UUID.randomUUID() + extension;
+        if (file.isEmpty()) {
+            throw new UserException(UserError.INVALID_FILE);
+        }
+        // 按文件内容判断格式, 不信任客户端给出的文件名和 Content-Type
+        String extension;
+        try (InputStream is = file.getInputStream()) {
+            extension = AvatarStore.detectImageExtension(is);
+        }
 
-        Path uploadPath = Paths.get(uploadDir);
-        System.out.println("===============");
-        System.out.println(uploadPath);
-        try {
-            // 创建目录（如果不存在）
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            // 保存文件
-            Path targetPath = uploadPath.resolve(newFilename);
-            try (InputStream is = file.getInputStream()) {
-                Files.copy(is, targetPath, StandardCopyOption.REPLACE_EXISTING);
-            }
+        // 文件名是内容的哈希, 相同的图片只存一份
+        String baseName;
+        try (InputStream is = file.getInputStream()) {
+            baseName = avatarStore.store(is, extension);
         } catch (IOException e) {
             log.error("文件存储失败: {}", e.getMessage());
             throw new UserException(UserError.INVALID_FILE);
         }
 
-        String accessUrl = accessPath.replace("/**", "") + "/" + newFilename;
-
-        // 更新用户头像
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserException(UserError.USER_NOT_FOUND));
-        user.setAvatarUrl(accessUrl);
-        userRepository.save(user);
-
-        return accessUrl;
+        return updateAvatar(userId, baseName, extension);
     }
 
-    // 封装的获取文件名函数
-    private static String getString(MultipartFile file) {
-        if (file.isEmpty()) {
-            throw new UserException(UserError.INVALID_FILE);
-        }
+    // 头像文件已经写入 AvatarStore 后调用, 返回访问路径
+    public String updateAvatar(Long userId, String baseName, String extension) {
+        String accessUrl = accessPath.replace("/**", "") + "/" + baseName + extension;
 
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null || file.getOriginalFilename().isEmpty()) {
-            throw new UserException(UserError.INVALID_FILE);
+        // 更新用户头像, 缩略图生成后会再指向默认尺寸的缩略图
+        if (userRepository.updateAvatarUrl(userId, accessUrl) == 0) {
+            throw new UserException(UserError.USER_NOT_FOUND);
         }
+        userSummaryCache.invalidate(userId);
+        avatarThumbnailService.submit(userId, baseName, extension);
 
-        String extension = "";
-        int dotIndex = originalFilename.lastIndexOf('.');
-        if (dotIndex > 0) {
-            extension = originalFilename.substring(dotIndex);
-        } else {
-            throw new UserException(UserError.INVALID_FILE_EXTENSION);
-        }
-        return extension;
+        return accessUrl;
     }
 /* TODO 存储头像图片. 随意你存储在哪里, 只要最终可以通过 http://localhost:8080/images/文件名 这个地址访问到对应的图片就算成功----ok
 开始上传文件
 ├─→ 文件是否为空?
 │   ├─→ 是 → 抛出INVALID_FILE异常
-│   └─→ 否 → 获取原始文件名
-│       └─→ 生成随机文件名(UUID+后缀)
-│           └─→ 上传目录是否存在?
-│               ├─→ 否 → 创建目录 → 继续
-│               └─→ 是 → 继续
-│                   └─→ 保存文件到本地路径
-│                       └─→ 构建访问URL
-│                           └─→ 根据userId查找用户
-│                               └─→ 用户是否存在?
-│                                  ├─→ 否 → 抛出USER_NULL异常
-│                                  └─→ 是 → 设置用户头像URL并保存 → 返回访问路径
+│   └─→ 否 → 用 Tika 检测文件内容的格式
+│       ├─→ 不是 png/jpeg/gif/bmp → 抛出UNSUPPORTED_IMAGE异常
+│       └─→ 写入临时文件, 同时计算内容的 SHA-256, 刷盘
+│           └─→ 相同内容的文件是否已存在?
+│               ├─→ 是 → 删除临时文件, 刷新已有文件的修改时间 → 继续
+│               └─→ 否 → 原子移动到 ab/cd/哈希.后缀 → 继续
+│                       └─→ 构建访问URL (/images/哈希.后缀)
+│                           └─→ 一条 update 设置用户头像URL
+│                               ├─→ 没有更新任何行 → 抛出USER_NULL异常
+│                               └─→ 清除用户摘要缓存 → 提交缩略图任务 → 返回访问路径 (不等待缩略图)
 └─→ [异常处理分支]
        └─→ 捕获IO异常 → 记录错误并返回上传失败
 */
 
 
-    public void updateUser(Long id, UpdateUserRequest newUser) {
-
-        User user = userRepository.getReferenceById(id);
-
-        if (!userRepository.existsById(id)) {
-            throw new UserException(UserError.USER_NOT_FOUND);
-        }
+    public UserResponse updateUser(Long id, UpdateUserRequest newUser) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UserException(UserError.USER_NOT_FOUND));
 
         if (newUser.username().isEmpty()) {
             throw new UserException(UserError.INVALID_USERNAME);
@@ -183,10 +184,14 @@ public class UserService {
         if (newUser.password().isEmpty()) {
             throw new UserException(UserError.AUTHENTICATION_FAILURE);
         }
-        String encode = passwordEncoder.encode(newUser.password());
+        String encode = passwordHasher.encode(newUser.password());
         user.setPassword(encode);
 
         userRepository.save(user);
+
+        // 先删除旧用户名的映射, 再写入新的摘要
+        userSummaryCache.invalidate(id);
+        return userSummaryCache.put(user);
     }
 /*TODO  更新用户信息----ok
 开始更新用户
@@ -204,7 +209,7 @@ public class UserService {
     │   │   │       ├── 新密码是否为空或空白？[判断]
     │   │   │       │   ├── 是 → 跳过更新密码
     │   │   │       │   └── 否
-    │   │   │       │       ├── 调用 passwordEncoder.encode(...) 加密密码
+    │   │   │       │       ├── 调用 passwordHasher.encode(...) 加密密码
     │   │   │       │       └── 调用 user.setPassword(...) 更新密码
     │   │   └── 流程结束
     │   └── 否 → 抛出 USER_NULL 异常
@@ -0,0 +1,36 @@
+package org.example.todo_list.utils;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// 分页游标的编解码. 游标对前端是不透明的字符串, 内容是 keyset 分页需要的排序键
+public class CursorUtil {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String SEPARATOR = ".";
+
+    public static String encode(String... keys) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARATOR);
+            }
+            sb.append(ENCODER.encodeToString(keys[i].getBytes(StandardCharsets.UTF_8)));
+        }
+        return sb.toString();
+    }
+
+    // 游标格式不对时抛出 IllegalArgumentException, 由调用方转换成对应的业务异常
+    public static String[] decode(String cursor, int expectedKeys) {
+        String[] parts = cursor.split("\\.", -1);
+        if (parts.length != expectedKeys) {
+            throw new IllegalArgumentException("游标格式错误: " + cursor);
+        }
+        String[] keys = new String[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            keys[i] = new String(DECODER.decode(parts[i]), StandardCharsets.UTF_8);
+        }
+        return keys;
+    }
+}
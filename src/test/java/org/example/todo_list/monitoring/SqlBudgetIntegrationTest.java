@@ -0,0 +1,180 @@
+package org.example.todo_list.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * 接口的 @SqlBudget 在构建中强制检查: 开启 monitoring.sql.enforce 后, 超出语句数或出现 N+1 的请求
+ * 由 SqlBudgetAdvice 抛出 SqlBudgetExceededException 变成 500, 这里的断言失败, mvn test 不通过.
+ * 每个测试使用一个新用户 (用户目录等缓存都是冷的), 数据有多个列表, 每个列表多个任务, 逐行查询的实现一定会超出预算.
+ */
+@SpringBootTest(properties = "monitoring.sql.enforce=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class SqlBudgetIntegrationTest {
+    private static final int LISTS = 4;
+    private static final int TASKS_PER_LIST = 15;
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cookie token;
+    private List<Integer> listIds;
+    private List<Integer> taskIds;
+
+    @BeforeEach
+    void seed() throws Exception {
+        String username = "b_" + UUID.randomUUID().toString().substring(0, 12);
+        String credentials = json(Map.of("username", username, "password", PASSWORD));
+        ok(post("/user/register").contentType(MediaType.APPLICATION_JSON).content(credentials));
+        MvcResult login = ok(post("/user/login").contentType(MediaType.APPLICATION_JSON).content(credentials));
+        token = login.getResponse().getCookie("jwt_token");
+
+        List<Map<String, Object>> tasks = new ArrayList<>();
+        long deadline = Instant.now().getEpochSecond() + 86400;
+        for (int l = 0; l < LISTS; l++) {
+            for (int t = 0; t < TASKS_PER_LIST; t++) {
+                tasks.add(Map.of("category", "list-" + l, "name", "task " + l + "-" + t, "status", false,
+                        "taskDescription", "seed", "deadline", deadline + t));
+            }
+        }
+        ok(post("/task/bulk").cookie(token).contentType(MediaType.APPLICATION_JSON).content(json(Map.of("tasks", tasks))));
+
+        String lists = ok(get("/list").cookie(token)).getResponse().getContentAsString();
+        listIds = JsonPath.read(lists, "$.data[*].id");
+        taskIds = JsonPath.read(lists, "$.data[*].tasks[*]");
+    }
+
+    @Test
+    void user() throws Exception {
+        ok(get("/user").cookie(token));
+    }
+
+    @Test
+    void lists() throws Exception {
+        ok(get("/list").cookie(token));
+        ok(get("/list").param("expand", "tasks").cookie(token));
+        // 每个列表只返回前 5 个任务, 剩下的通过 nextCursor 分页获取
+        String lists = ok(get("/list").param("expand", "tasks").param("taskLimit", "5").cookie(token))
+                .getResponse().getContentAsString();
+        List<Integer> firstTasks = JsonPath.read(lists, "$.data[0].tasks[*].id");
+        assertThat(firstTasks).hasSize(5);
+        String cursor = JsonPath.read(lists, "$.data[0].nextCursor");
+        ok(get("/list/{id}/tasks", listIds.getFirst()).param("cursor", cursor).cookie(token));
+    }
+
+    @Test
+    void list() throws Exception {
+        ok(get("/list/{id}", listIds.getFirst()).cookie(token));
+        ok(get("/list/{id}", listIds.getFirst()).param("expand", "tasks").cookie(token));
+        String list = ok(get("/list/{id}", listIds.getFirst()).param("expand", "tasks").param("taskLimit", "5").cookie(token))
+                .getResponse().getContentAsString();
+        List<Integer> tasks = JsonPath.read(list, "$.data.tasks[*].id");
+        assertThat(tasks).hasSize(5);
+        assertThat((String) JsonPath.read(list, "$.data.nextCursor")).isNotNull();
+    }
+
+    @Test
+    void taskPage() throws Exception {
+        String page = ok(get("/list/{id}/tasks", listIds.getFirst()).param("limit", "5").cookie(token))
+                .getResponse().getContentAsString();
+        String cursor = JsonPath.read(page, "$.data.nextCursor");
+        ok(get("/list/{id}/tasks", listIds.getFirst()).param("limit", "5").param("cursor", cursor).cookie(token));
+    }
+
+    @Test
+    void getTask() throws Exception {
+        ok(get("/task/{id}", taskIds.getFirst()).cookie(token));
+    }
+
+    @Test
+    void batchGet() throws Exception {
+        ok(post("/task/batch").cookie(token).contentType(MediaType.APPLICATION_JSON).content(json(Map.of("ids", taskIds))));
+    }
+
+    @Test
+    void query() throws Exception {
+        String page = ok(get("/task/query").param("status", "false").param("limit", "10").cookie(token))
+                .getResponse().getContentAsString();
+        String cursor = JsonPath.read(page, "$.data.nextCursor");
+        ok(get("/task/query").param("status", "false").param("limit", "10").param("cursor", cursor).cookie(token));
+        ok(get("/task/query").param("category", "list-0", "list-1").param("sort", "name").cookie(token));
+    }
+
+    @Test
+    void search() throws Exception {
+        // 第一次建立索引, 第二次只查任务详情
+        ok(get("/task/search").param("q", "task").cookie(token));
+        ok(get("/task/search").param("q", "task 1").param("limit", "50").cookie(token));
+    }
+
+    @Test
+    void createTask() throws Exception {
+        ok(post("/task").cookie(token).contentType(MediaType.APPLICATION_JSON).content(json(Map.of(
+                "category", "list-0", "name", "new", "status", false))));
+        // 新类别需要新建列表
+        ok(post("/task").cookie(token).contentType(MediaType.APPLICATION_JSON).content(json(Map.of(
+                "category", "new-list", "name", "new", "status", false))));
+    }
+
+    @Test
+    void updateTask() throws Exception {
+        ok(patch("/task/{id}", taskIds.getFirst()).cookie(token).contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", true, "name", "renamed", "category", "list-1"))));
+        ok(patch("/task/{id}", taskIds.getLast()).cookie(token).contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("category", "moved-list", "deadline", Instant.now().getEpochSecond() + 3600))));
+    }
+
+    @Test
+    void deleteTask() throws Exception {
+        ok(delete("/task/{id}", taskIds.getFirst()).cookie(token));
+    }
+
+    // 没有标注 @SqlBudget 的接口使用 monitoring.sql.default-budget
+    @Test
+    void listWrites() throws Exception {
+        ok(put("/list/{category}", "created").cookie(token));
+        ok(patch("/list/change_category/{id}", listIds.getFirst()).param("newCategory", "renamed").cookie(token));
+        ok(delete("/list/{id}", listIds.getLast()).cookie(token));
+    }
+
+    private MvcResult ok(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andReturn();
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.todo_list.reminder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 每层 4 个槽, 3 层: 第 1 层一个槽 4 个 tick, 第 2 层一个槽 16 个 tick, 层边界很密, 可以逐个 tick 检查
+class TimingWheelTest {
+    private static final int BITS = 2;
+    private static final int LEVELS = 3;
+
+    // 到期时的 tick 和条目
+    private record Fired(long tick, long id, long time) {
+    }
+
+    @ParameterizedTest(name = "起始 tick {0}")
+    @ValueSource(longs = {0, 3, 4, 15, 16, 37})
+    void everyEntryWithinHorizonFiresExactlyAtItsTick(long start) {
+        TimingWheel wheel = new TimingWheel(BITS, LEVELS, start);
+        long horizon = wheel.getHorizon();
+        for (long time = start + 1; time <= start + horizon; time++) {
+            assertThat(wheel.add(time, time)).as("add %d", time).isTrue();
+        }
+        assertThat(wheel.size()).isEqualTo(horizon);
+
+        List<Fired> fired = advance(wheel, start + horizon);
+
+        assertThat(fired).hasSize((int) horizon);
+        assertThat(fired).allSatisfy(f -> assertThat(f.tick()).as("条目 %d", f.id()).isEqualTo(f.time()));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cascadesAtLevelBoundaries() {
+        TimingWheel wheel = new TimingWheel(BITS, LEVELS, 0);
+        // 恰好在第 1 层和第 2 层槽的开始, 以及开始前后一个 tick
+        long[] times = {3, 4, 5, 15, 16, 17, 31, 32, 48};
+        for (long time : times) {
+            wheel.add(time, time);
+        }
+
+        for (long time : times) {
+            assertThat(advance(wheel, time - 1)).as("%d 之前", time).noneMatch(f -> f.time() == time);
+            assertThat(advance(wheel, time)).containsExactly(new Fired(time, time, time));
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void entriesAddedAfterAdvancingFireOnTime() {
+        TimingWheel wheel = new TimingWheel(BITS, LEVELS, 0);
+        advance(wheel, 13);
+        wheel.add(1, 16);
+        wheel.add(2, 14);
+        wheel.add(3, 40);
+        List<Fired> fired = advance(wheel, 15);
+        wheel.add(4, 20);
+        fired.addAll(advance(wheel, 40));
+
+        assertThat(fired).containsExactly(
+                new Fired(14, 2, 14), new Fired(16, 1, 16), new Fired(20, 4, 20), new Fired(40, 3, 40));
+    }
+
+    @Test
+    void sameTickEntriesAllFire() {
+        TimingWheel wheel = new TimingWheel(BITS, LEVELS, 0);
+        for (long id = 0; id < 100; id++) {
+            wheel.add(id, 21);
+        }
+
+        List<Fired> fired = advance(wheel, 21);
+
+        assertThat(fired).hasSize(100).allSatisfy(f -> assertThat(f.tick()).isEqualTo(21));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastEntriesFireOnNextTickWithOriginalTime() {
+        TimingWheel wheel = new TimingWheel(BITS, LEVELS, 10);
+        wheel.add(1, 3);
+        wheel.add(2, 10);
+
+        assertThat(advance(wheel, 11)).containsExactly(new Fired(11, 1, 3), new Fired(11, 2, 10));
+    }
+
+    @ParameterizedTest(name = "起始 tick {0}")
+    @ValueSource(longs = {0, 5, 16, 63})
+    void entriesBeyondTopLevelAreRejected(long start) {
+        TimingWheel wheel = new TimingWheel(BITS, LEVELS, start);
+        // 最高层一圈之外一定放不下
+        long beyond = ((start >>> (BITS * (LEVELS - 1))) + (1L << BITS)) << (BITS * (LEVELS - 1));
+
+        assertThat(wheel.add(1, start + wheel.getHorizon())).isTrue();
+        assertThat(wheel.add(2, beyond)).isFalse();
+        assertThat(wheel.add(3, beyond + 100)).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        // 时间推进后, 之前放不下的条目可以加入, 并按时到期
+        advance(wheel, beyond - wheel.getHorizon());
+        assertThat(wheel.add(2, beyond)).isTrue();
+        assertThat(advance(wheel, beyond)).contains(new Fired(beyond, 2, beyond));
+    }
+
+    private static List<Fired> advance(TimingWheel wheel, long toTick) {
+        List<Fired> fired = new ArrayList<>();
+        while (wheel.getCurrentTick() < toTick) {
+            long tick = wheel.getCurrentTick() + 1;
+            wheel.advanceTo(tick, (id, time) -> fired.add(new Fired(tick, id, time)));
+        }
+        return fired;
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.todo_list.service;
+
+import org.example.todo_list.dto.response.GetListResponse;
+import org.example.todo_list.monitoring.SqlRequestContext;
+import org.example.todo_list.repository.ReadPathProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// getAllLists 对任意数量的列表都只执行一条语句. 语句数来自 datasource-proxy 的 SqlStatementListener, 与接口的 SQL 预算统计方式相同
+@SpringBootTest
+@ActiveProfiles("embedded")
+class TodoListServiceStatementCountTest {
+    private static final int TASKS_PER_LIST = 3;
+
+    @Autowired
+    private TodoListService todoListService;
+    @Autowired
+    private ReadPathProperties readPath;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void restoreReadPath() {
+        readPath.setLists(ReadPathProperties.Impl.JPA);
+    }
+
+    @ParameterizedTest(name = "{0} 个列表, {1}")
+    @CsvSource({
+            "1, JPA", "10, JPA", "50, JPA",
+            "1, MYBATIS", "10, MYBATIS", "50, MYBATIS"
+    })
+    void getAllListsExecutesOneStatement(int lists, ReadPathProperties.Impl impl) {
+        readPath.setLists(impl);
+        Long userId = seedUser(lists);
+
+        List<GetListResponse> res = countStatements(() -> todoListService.getAllLists(userId), 1);
+
+        assertThat(res).hasSize(lists);
+        assertThat(res).allSatisfy(list -> assertThat(list.tasks()).hasSize(TASKS_PER_LIST));
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithListCount() {
+        Long small = seedUser(2);
+        Long large = seedUser(40);
+
+        int smallCount = statementsOf(() -> todoListService.getAllLists(small));
+        int largeCount = statementsOf(() -> todoListService.getAllLists(large));
+
+        assertThat(largeCount).isEqualTo(smallCount).isEqualTo(1);
+    }
+
+    private <T> T countStatements(Supplier<T> call, int expected) {
+        SqlRequestContext context = SqlRequestContext.begin();
+        try {
+            T res = call.get();
+            assertThat(context.getStatements()).as("执行的语句数").isEqualTo(expected);
+            return res;
+        } finally {
+            SqlRequestContext.end();
+        }
+    }
+
+    private int statementsOf(Runnable call) {
+        SqlRequestContext context = SqlRequestContext.begin();
+        try {
+            call.run();
+            return context.getStatements();
+        } finally {
+            SqlRequestContext.end();
+        }
+    }
+
+    // 新建一个用户和 lists 个列表, 每个列表 TASKS_PER_LIST 个任务
+    private Long seedUser(int lists) {
+        Long userId = insert("insert into User (username, password) values (?, ?)",
+                "u_" + UUID.randomUUID().toString().substring(0, 12), "x");
+        for (int l = 0; l < lists; l++) {
+            Long listId = insert("insert into TodoList (category, user_id) values (?, ?)", "list-" + l, userId);
+            for (int t = 0; t < TASKS_PER_LIST; t++) {
+                jdbcTemplate.update("insert into Task (name, description, status, todo_list_id) values (?, ?, false, ?)",
+                        "task-" + t, "", listId);
+            }
+        }
+        return userId;
+    }
+
+    private Long insert(String sql, Object... args) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+}
@@ -29,6 +29,16 @@ export interface GetTaskResponse {
 export async function getTask(id: number) {
   return alova.Get<WebResponse<GetTaskResponse>>(`/task/${id}`);
 }
+
+/* 批量查询, 按 ids 的顺序返回, 不存在的 id 放在 missing 中 */
+export interface BatchGetTaskResponse {
+  tasks: GetTaskResponse[];
+  missing: number[];
+}
+
+export async function getTasks(ids: number[]) {
+  return alova.Post<WebResponse<BatchGetTaskResponse>>("/task/batch", { ids });
+}
 export interface DeleteTaskRequest {
   id?: number;
 }
@@ -5,7 +5,7 @@ import { Label } from "@/components/ui/label";
 
 import React, { useRef, useState } from "react";
 import { useAuthStore } from "@/storages/auth.ts";
-import { cn } from "@/utils";
+import { avatarVariant, cn } from "@/utils";
 import { z } from "zod";
 import { useForm } from "react-hook-form";
 import { zodResolver } from "@hookform/resolvers/zod";
@@ -83,7 +83,7 @@ function MyProfile() {
           id: "update-error",
           description: res.msg,
         });
-      } else if (res.code === 1007) {
+      } else if (res.code === 1007 || res.code === 1009) {
         toast.error("非法文件类型", {
           id: "update-error",
           description: res.msg,
@@ -134,7 +134,7 @@ function MyProfile() {
             {" "}
             {/* Center avatar */}
             <Avatar
-              src={authStore.user?.avatarUrl!}
+              src={avatarVariant(authStore.user?.avatarUrl, 256)}
               fallback="CN"
               className={cn(
                 "w-[20vw]",
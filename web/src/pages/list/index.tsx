@@ -3,7 +3,7 @@ import { useParams } from "react-router-dom";
 import { getAllTodoLists, fetchByListId } from "@/api/todolist";
 import { toast } from "sonner";
 import { Columns, TaskRow } from "@/pages/list/columns.tsx";
-import { createTask, getTask } from "@/api/task";
+import { createTask, getTasks } from "@/api/task";
 import { cn } from "@/utils";
 import { Input } from "@/components/ui/input.tsx";
 import { Plus } from "lucide-react";
@@ -43,28 +43,30 @@ export default function ListDetailPage() {
         return;
       }
 
-      const taskList = await Promise.all(
-        todoList.tasks.map(async (id) => {
-          const taskRes = await getTask(id);
-          if (taskRes.code === 200 && taskRes.data?.name) {
-            return {
-              id,
-              name: taskRes.data.name,
-              status: taskRes.data.status ?? false,
-              category: category,
-              deadline: taskRes.data.deadline,
-            };
-          }
-          if (taskRes.code === 3002) {
-            toast.error("没找到任务列表", {
-              id: "add-error",
-              description: res.msg,
-            });
-          }
-          return null;
-        })
+      // 按批取回任务(每批最多 1000 个), 避免逐个调用 /task/{id}
+      const chunks: number[][] = [];
+      for (let i = 0; i < todoList.tasks.length; i += 1000) {
+        chunks.push(todoList.tasks.slice(i, i + 1000));
+      }
+      const responses = await Promise.all(chunks.map((ids) => getTasks(ids)));
+      const failed = responses.find((taskRes) => taskRes.code !== 200 || !taskRes.data);
+      if (failed) {
+        toast.error("获取任务列表失败", {
+          id: "add-error",
+          description: failed.msg,
+        });
+        return;
+      }
+      const taskList: TaskRow[] = responses.flatMap((taskRes) =>
+        (taskRes.data?.tasks ?? []).map((task) => ({
+          id: task.id,
+          name: task.name,
+          status: task.status ?? false,
+          category: category,
+          deadline: task.deadline,
+        }))
       );
-      setTasks(taskList.filter((task) => task !== null) as TaskRow[]);
+      setTasks(taskList);
     } catch (error) {
       toast.error("获取任务列表失败");
       console.error(error);
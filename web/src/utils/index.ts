@@ -4,3 +4,8 @@ import { twMerge } from "tailwind-merge";
 export function cn(...inputs: ClassValue[]) {
   return twMerge(clsx(inputs));
 }
+
+// 后端生成的头像缩略图文件名为 "原名_尺寸.扩展名", 默认返回 64px, 需要更大的尺寸时替换后缀
+export function avatarVariant(url: string | undefined, size: 32 | 64 | 256) {
+  return url?.replace(/_(32|64|256)(\.[a-z]+)$/, `_${size}$2`) ?? "";
+}